@@ -19,19 +19,13 @@ import com.example.appfood.R;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.TimeZone;
 
-import api.ApiService;
 import api.ModelResponse;
-import api.RetrofitClient;
+import api.UserRepository;
 import de.hdodenhof.circleimageview.CircleImageView;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 /**
  * Adapter for displaying comments in a RecyclerView
@@ -53,10 +47,6 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
     private String token;
     private String currentUserId; // Added to track the current user ID
 
-    // Cache for user data to avoid repeated API calls
-    private final Map<String, String> userNameCache = new HashMap<>();
-    private final Map<String, String> userAvatarCache = new HashMap<>();
-
     /**
      * Interface for comment action callbacks
      */
@@ -137,12 +127,13 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
      * Bind user data (name and avatar) to the view holder
      */
     private void bindUserData(CommentViewHolder holder, String authorId, int position) {
-        // Check if we already have author's name in cache
-        if (userNameCache.containsKey(authorId)) {
-            holder.tvUsername.setText(userNameCache.get(authorId));
+        // Check if we already have the author in the shared user cache
+        ModelResponse.UserResponse.User cachedUser = UserRepository.getInstance().getCachedUser(authorId);
+        if (cachedUser != null) {
+            holder.tvUsername.setText(cachedUser.getName());
 
             // Load author avatar if available
-            String authorAvatar = userAvatarCache.get(authorId);
+            String authorAvatar = cachedUser.getUrlAvatar();
             if (!TextUtils.isEmpty(authorAvatar)) {
                 loadAvatar(holder.ivAvatar, authorAvatar);
             } else {
@@ -208,53 +199,27 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
      * @param position Position in the RecyclerView
      */
     private void fetchUserDetails(String userId, CommentViewHolder holder, int position) {
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, userId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, userId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call,
-                                   @NonNull Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null &&
-                        response.body().getData() != null &&
-                        response.body().getData().getUser() != null) {
-
-                    // Get user data
-                    ModelResponse.UserResponse.User user = response.body().getData().getUser();
-                    String userName = user.getName();
-                    String userAvatar = user.getUrlAvatar();
-
-                    // Store in cache
-                    userNameCache.put(userId, userName);
-                    if (userAvatar != null) {
-                        userAvatarCache.put(userId, userAvatar);
-                    }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                String userName = user.getName();
+                String userAvatar = user.getUrlAvatar();
 
-                    // Update UI if the view holder is still visible
-                    if (holder.getAdapterPosition() == position) {
-                        holder.tvUsername.setText(userName);
-                        if (userAvatar != null) {
-                            loadAvatar(holder.ivAvatar, userAvatar);
-                        }
-                    }
-                } else {
-                    // Fallback on error
-                    Log.e(TAG, "Failed to get user details: " + response.code());
-                    userNameCache.put(userId, userId); // Use ID as fallback
-
-                    // Update UI with fallback
-                    if (holder.getAdapterPosition() == position) {
-                        holder.tvUsername.setText(userId);
+                // Update UI if the view holder is still visible
+                if (holder.getAdapterPosition() == position) {
+                    holder.tvUsername.setText(userName);
+                    if (userAvatar != null) {
+                        loadAvatar(holder.ivAvatar, userAvatar);
                     }
                 }
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "API call failed: " + t.getMessage());
-                userNameCache.put(userId, userId); // Use ID as fallback
+            public void onError(String errorMessage) {
+                // Fallback on error
+                Log.e(TAG, "Failed to get user details: " + errorMessage);
 
-                // Update UI with fallback
+                // Update UI with fallback, using ID as name
                 if (holder.getAdapterPosition() == position) {
                     holder.tvUsername.setText(userId);
                 }
@@ -19,16 +19,10 @@ import com.bumptech.glide.request.RequestOptions;
 import com.example.appfood.R;
 import com.example.appfood.OtherProfileActivity;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import api.ApiService;
 import api.ModelResponse;
-import api.RetrofitClient;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import api.UserRepository;
 
 /**
  * Adapter for displaying new recipes in a RecyclerView with additional author information
@@ -41,8 +35,6 @@ public class NewRecipeAdapter extends RecyclerView.Adapter<NewRecipeAdapter.View
     private final Context context;
     private final List<ModelResponse.RecipeResponse.Recipe> recipeList;
     private final OnRecipeClickListener listener;
-    private final Map<String, String> authorNameCache = new HashMap<>();
-    private final Map<String, String> authorAvatarCache = new HashMap<>();
     private String token;
 
     /**
@@ -150,6 +142,7 @@ public class NewRecipeAdapter extends RecyclerView.Adapter<NewRecipeAdapter.View
         if (holder.tvRecipeAuthor == null) return;
 
         String authorId = recipe.getAuthor();
+        ModelResponse.UserResponse.User cachedAuthor = UserRepository.getInstance().getCachedUser(authorId);
 
         if (SPECIAL_AUTHOR.equals(authorId)) {
             // Special case for helenrecipes
@@ -157,11 +150,12 @@ public class NewRecipeAdapter extends RecyclerView.Adapter<NewRecipeAdapter.View
             if (holder.ivAuthorAvatar != null) {
                 holder.ivAuthorAvatar.setImageResource(R.drawable.ic_helen);
             }
-        } else if (authorNameCache.containsKey(authorId)) {
+        } else if (cachedAuthor != null) {
             // Use cached author info
-            holder.tvRecipeAuthor.setText(authorNameCache.get(authorId));
-            if (holder.ivAuthorAvatar != null && authorAvatarCache.containsKey(authorId)) {
-                loadAuthorAvatar(holder.ivAuthorAvatar, authorAvatarCache.get(authorId));
+            holder.tvRecipeAuthor.setText(cachedAuthor.getName());
+            String avatarUrl = cachedAuthor.getUrlAvatar();
+            if (holder.ivAuthorAvatar != null && avatarUrl != null && !avatarUrl.isEmpty()) {
+                loadAuthorAvatar(holder.ivAuthorAvatar, avatarUrl);
             }
         } else {
             // Set temporary values and fetch author info
@@ -201,52 +195,21 @@ public class NewRecipeAdapter extends RecyclerView.Adapter<NewRecipeAdapter.View
             return;
         }
 
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById(BEARER_PREFIX + token, authorId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser(BEARER_PREFIX + token, authorId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(Call<ModelResponse.UserResponse> call,
-                                   Response<ModelResponse.UserResponse> response) {
-                if (isSuccessfulUserResponse(response)) {
-                    // Extract user info
-                    ModelResponse.UserResponse.User user = response.body().getData().getUser();
-                    String name = user.getName();
-                    String avatarUrl = user.getUrlAvatar();
-
-                    // Cache the data
-                    authorNameCache.put(authorId, name);
-                    if (avatarUrl != null && !avatarUrl.isEmpty()) {
-                        authorAvatarCache.put(authorId, avatarUrl);
-                    }
-
-                    // Update UI
-                    updateAuthorUI(holder, name, avatarUrl);
-                } else {
-                    // Handle error
-                    setDefaultAuthorInfo(holder);
-                    Log.e(TAG, "Error getting author info: " + response.code());
-                }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                // Update UI
+                updateAuthorUI(holder, user.getName(), user.getUrlAvatar());
             }
 
             @Override
-            public void onFailure(Call<ModelResponse.UserResponse> call, Throwable t) {
+            public void onError(String errorMessage) {
                 setDefaultAuthorInfo(holder);
-                Log.e(TAG, "Failed to get author info: " + t.getMessage());
+                Log.e(TAG, "Failed to get author info: " + errorMessage);
             }
         });
     }
 
-    /**
-     * Checks if user response is valid and contains required data
-     */
-    private boolean isSuccessfulUserResponse(Response<ModelResponse.UserResponse> response) {
-        return response.isSuccessful() &&
-                response.body() != null &&
-                response.body().getData() != null &&
-                response.body().getData().getUser() != null;
-    }
-
     /**
      * Sets default author information when API call fails
      */
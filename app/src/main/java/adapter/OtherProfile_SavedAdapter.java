@@ -17,16 +17,12 @@ import com.bumptech.glide.Glide;
 import com.example.appfood.MainRecipe;
 import com.example.appfood.R;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import api.ApiService;
-import api.RetrofitClient;
 import api.ModelResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import api.UserRepository;
+import api.RatingBatchLoader;
 
 public class OtherProfile_SavedAdapter extends RecyclerView.Adapter<OtherProfile_SavedAdapter.ViewHolder> {
 
@@ -35,9 +31,7 @@ public class OtherProfile_SavedAdapter extends RecyclerView.Adapter<OtherProfile
     private final Context context;
     private final String token;
     private OnItemClickListener onItemClickListener;
-    private final HashMap<String, String> authorCache = new HashMap<>();
     private AtomicInteger loadingCounter = new AtomicInteger(0);
-    private double averageRating;
     private FrameLayout loadingOverlay;
 
     public OtherProfile_SavedAdapter(Context context, List<ModelResponse.RecipeDetailResponse.Recipe> recipeList, String token) {
@@ -82,28 +76,14 @@ public class OtherProfile_SavedAdapter extends RecyclerView.Adapter<OtherProfile
     }
 
     private void fetchUsername(String userId, TextView tvAuthor) {
-        if (authorCache.containsKey(userId)) {
-            tvAuthor.setText("by " + authorCache.get(userId));
-            return;
-        }
-
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, userId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, userId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String username = response.body().getData().getUser().getName();
-                    authorCache.put(userId, username);
-                    tvAuthor.setText("by " + username);
-                } else {
-                    tvAuthor.setText("by Unknown");
-                }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                tvAuthor.setText("by " + user.getName());
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
+            public void onError(String errorMessage) {
                 tvAuthor.setText("by Unknown");
             }
         });
@@ -113,45 +93,32 @@ public class OtherProfile_SavedAdapter extends RecyclerView.Adapter<OtherProfile
         // Increment loading counter
         loadingCounter.incrementAndGet();
 
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.getRatingResponse> call = apiService.getRecipeRating("Bearer " + token, id);
-
-        call.enqueue(new Callback<ModelResponse.getRatingResponse>() {
+        RatingBatchLoader.getInstance().load("Bearer " + token, id, new RatingBatchLoader.RatingCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                   @NonNull Response<ModelResponse.getRatingResponse> response) {
+            public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
                 checkAndUpdateLoadingState();
 
-                if (response.isSuccessful() && response.body() != null &&
-                        response.body().getData() != null) {
+                double averageRating = ratingData.getAverageRating();
+                Log.d(TAG, "Received rating data: average=" + averageRating);
 
-                    ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
-
-                    averageRating = ratingData.getAverageRating();
-                    Log.d(TAG, "Received rating data: average=" + averageRating);
-
-                    updateRatingUI(holder);
-                } else {
-                    Log.e(TAG, "Failed to get rating info: " +
-                            (response.code() + " " + (response.errorBody() != null ?
-                                    "Error body available" : "No error body")));
-                }
+                updateRatingUI(holder, recipeId, averageRating);
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
+            public void onError(String recipeId, String errorMessage) {
                 checkAndUpdateLoadingState();
-                Log.e(TAG, "Network error fetching rating: " + t.getMessage());
+                Log.e(TAG, "Failed to get rating info: " + errorMessage);
             }
         });
     }
 
-    private void updateRatingUI(ViewHolder holder) {
-        if (holder != null) {
-            ((Activity) context).runOnUiThread(() -> {
-                holder.tvRating.setText(String.format("%.1f", averageRating));
-            });
+    private void updateRatingUI(ViewHolder holder, String recipeId, double averageRating) {
+        // The holder may have been recycled for another recipe while the rating was loading
+        int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION || !recipeId.equals(recipeList.get(position).getId())) {
+            return;
         }
+        holder.tvRating.setText(String.format("%.1f", averageRating));
     }
 
     private void checkAndUpdateLoadingState() {
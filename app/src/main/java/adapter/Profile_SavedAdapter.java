@@ -15,12 +15,8 @@ import com.bumptech.glide.Glide;
 import com.example.appfood.MainRecipe;
 import com.example.appfood.R;
 import java.util.List;
-import api.ApiService;
-import api.RetrofitClient;
 import api.ModelResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import api.UserRepository;
 
 public class Profile_SavedAdapter extends RecyclerView.Adapter<Profile_SavedAdapter.ViewHolder> {
 
@@ -71,22 +67,14 @@ public class Profile_SavedAdapter extends RecyclerView.Adapter<Profile_SavedAdap
     }
 
     private void fetchUsername(String userId, TextView tvAuthor) {
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, userId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, userId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String username = response.body().getData().getUser().getName();
-                    tvAuthor.setText("by " + username);
-                } else {
-                    tvAuthor.setText("by Unknown");
-                }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                tvAuthor.setText("by " + user.getName());
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
+            public void onError(String errorMessage) {
                 tvAuthor.setText("by Unknown");
             }
         });
@@ -0,0 +1,25 @@
+package api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The one Gson instance of the app. Gson caches an adapter per type, so sharing it means
+ * each model class is inspected once per process instead of once per call.
+ */
+public final class ApiGson {
+    private static final Gson gson = createGson();
+
+    private ApiGson() {
+    }
+
+    public static Gson get() {
+        return gson;
+    }
+
+    private static Gson createGson() {
+        GsonBuilder builder = new GsonBuilder();
+        RecipeTypeAdapters.register(builder);
+        return builder.create();
+    }
+}
@@ -3,20 +3,25 @@ import java.util.Map;
 
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.Field;
 import retrofit2.http.FormUrlEncoded;
 import retrofit2.http.GET;
+import retrofit2.http.HEAD;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.Multipart;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
+import retrofit2.http.PUT;
 import retrofit2.http.Part;
 import retrofit2.http.PartMap;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface ApiService {
     // Authentication & Account Management
@@ -127,6 +132,19 @@ public interface ApiService {
             @retrofit2.http.Header("Authorization") String token
     );
 
+    /**
+     * Recipes added, changed or deleted after the given sync watermark, 0 returns everything.
+     * The body is left unread so it can be parsed recipe by recipe, see RecipeDeltaReader.
+     * Every watermark is a different URL that is never requested again, so it is not cached
+     */
+    @Streaming
+    @Headers({SingleFlightInterceptor.STREAMING_HEADER + ": true", "Cache-Control: no-store"})
+    @GET("recipes/get-all-recipes")
+    Call<ResponseBody> streamRecipesChangedSince(
+            @retrofit2.http.Header("Authorization") String token,
+            @Query("since") long since
+    );
+
     @Multipart
     @POST("recipes/add-recipe")
     Call<ModelResponse.RecipeDetailResponse> addRecipeWithParts(
@@ -135,6 +153,30 @@ public interface ApiService {
             @Part MultipartBody.Part imageRecipe
     );
 
+    /**
+     * How much of a resumable recipe image upload the server holds, in the Upload-Offset
+     * header. 404 when it holds nothing for that id
+     */
+    @HEAD("recipes/add-recipe/uploads/{uploadId}")
+    Call<Void> getRecipeImageUpload(
+            @Header("Authorization") String token,
+            @Path("uploadId") String uploadId
+    );
+
+    /**
+     * Appends a part of a recipe image that starts at the given offset. Answers 204 with the
+     * new Upload-Offset, or 409 with the offset it holds when the two do not match.
+     * See ResumableImageUpload for the whole protocol
+     */
+    @PUT("recipes/add-recipe/uploads/{uploadId}")
+    Call<Void> putRecipeImagePart(
+            @Header("Authorization") String token,
+            @Path("uploadId") String uploadId,
+            @Header("Upload-Offset") long offset,
+            @Header("Upload-Length") long length,
+            @Body RequestBody part
+    );
+
     @DELETE("recipes/{recipeId}")
     Call<ModelResponse.readNotificationResponse> deleteRecipe(
             @retrofit2.http.Header("Authorization") String token,
@@ -155,6 +197,12 @@ public interface ApiService {
             @Query("id") String recipeId
     );
 
+    @GET("recipes/get-recipes-rating")
+    Call<ModelResponse.getRatingsBatchResponse> getRecipeRatings(
+            @retrofit2.http.Header("Authorization") String token,
+            @Query("ids") String recipeIds
+    );
+
     // Recipe Saved/Bookmarks
     @GET("users/saved-recipes")
     Call<ModelResponse.RecipeResponse> getSavedRecipes(
@@ -0,0 +1,103 @@
+package api;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Counts how many responses were served from the HTTP disk cache and how many body
+ * bytes that saved compared to downloading them again.
+ *
+ * Runs as an application interceptor so it sees the final response after the cache.
+ */
+public class CacheMetricsInterceptor implements Interceptor {
+    private static final String TAG = "HttpCache";
+
+    private final AtomicLong networkResponses = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Response response = chain.proceed(chain.request());
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+
+        Response networkResponse = response.networkResponse();
+        AtomicLong counter;
+        if (response.cacheResponse() != null && networkResponse == null) {
+            cacheHits.incrementAndGet();
+            counter = bytesSaved;
+        } else if (networkResponse != null && networkResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            // Server answered 304 Not Modified, the body comes from disk. A conditional request
+            // answered with a full 200 also has a cacheResponse but is counted as downloaded
+            conditionalHits.incrementAndGet();
+            counter = bytesSaved;
+        } else {
+            networkResponses.incrementAndGet();
+            counter = bytesDownloaded;
+        }
+
+        ForwardingSource countingSource = new ForwardingSource(body.source()) {
+            @Override
+            public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    counter.addAndGet(read);
+                }
+                return read;
+            }
+        };
+
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(countingSource), body.contentType(), body.contentLength()))
+                .build();
+    }
+
+    public long getNetworkResponseCount() {
+        return networkResponses.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    public long getConditionalHitCount() {
+        return conditionalHits.get();
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    /**
+     * Body bytes served from disk instead of the network during this session
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public void logSummary() {
+        Log.d(TAG, "network=" + networkResponses.get() +
+                ", cacheHits=" + cacheHits.get() +
+                ", notModified=" + conditionalHits.get() +
+                ", downloaded=" + bytesDownloaded.get() + "B" +
+                ", saved=" + bytesSaved.get() + "B");
+    }
+}
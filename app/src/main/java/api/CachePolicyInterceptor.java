@@ -0,0 +1,127 @@
+package api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that fills in cache headers for GET endpoints when the server
+ * does not send usable ones, so OkHttp's disk cache can store the response and
+ * revalidate it with If-None-Match / If-Modified-Since instead of downloading it again.
+ *
+ * Policies are matched by path prefix relative to the API base, e.g. "recipes/get-all-recipes".
+ */
+public class CachePolicyInterceptor implements Interceptor {
+    private final String basePath;
+    private final Map<String, CachePolicy> policies = new LinkedHashMap<>();
+
+    /**
+     * How a cached response of an endpoint may be reused
+     */
+    public static class CachePolicy {
+        private final int maxAgeSeconds;
+        private final boolean overrideServer;
+
+        private CachePolicy(int maxAgeSeconds, boolean overrideServer) {
+            this.maxAgeSeconds = maxAgeSeconds;
+            this.overrideServer = overrideServer;
+        }
+
+        /**
+         * Always ask the server, which answers 304 when the stored copy is still valid
+         */
+        public static CachePolicy revalidate() {
+            return new CachePolicy(0, false);
+        }
+
+        /**
+         * Reuse the stored copy without asking the server for the given time
+         */
+        public static CachePolicy maxAge(int seconds) {
+            return new CachePolicy(seconds, false);
+        }
+
+        /**
+         * Applies this policy even when the server sends its own cache headers
+         */
+        public CachePolicy overridingServer() {
+            return new CachePolicy(maxAgeSeconds, true);
+        }
+    }
+
+    /**
+     * @param basePath Path of the API base URL, e.g. "/api/"
+     */
+    public CachePolicyInterceptor(String basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * Sets the policy for every GET endpoint whose path starts with the given prefix
+     */
+    public synchronized CachePolicyInterceptor setPolicy(String pathPrefix, CachePolicy policy) {
+        policies.put(pathPrefix, policy);
+        return this;
+    }
+
+    public synchronized void removePolicy(String pathPrefix) {
+        policies.remove(pathPrefix);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        if (!"GET".equals(request.method()) || response.code() != 200) {
+            return response;
+        }
+
+        CachePolicy policy = findPolicy(request.url().encodedPath());
+        if (policy == null || (!policy.overrideServer && hasExplicitFreshness(response))) {
+            return response;
+        }
+
+        String cacheControl = policy.maxAgeSeconds > 0
+                ? "private, max-age=" + policy.maxAgeSeconds
+                : "private, no-cache";
+
+        // Every endpoint is authenticated, so a stored copy must only match the same token
+        return response.newBuilder()
+                .header("Cache-Control", cacheControl)
+                .header("Vary", "Authorization")
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .build();
+    }
+
+    private synchronized CachePolicy findPolicy(String path) {
+        String relativePath = path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+        CachePolicy match = null;
+        int matchLength = -1;
+        for (Map.Entry<String, CachePolicy> entry : policies.entrySet()) {
+            if (relativePath.startsWith(entry.getKey()) && entry.getKey().length() > matchLength) {
+                match = entry.getValue();
+                matchLength = entry.getKey().length();
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Checks if the server already decided how long the response stays fresh
+     */
+    private static boolean hasExplicitFreshness(Response response) {
+        CacheControl cacheControl = response.cacheControl();
+        return cacheControl.maxAgeSeconds() != -1 || cacheControl.noCache() ||
+                cacheControl.noStore() || response.header("Expires") != null;
+    }
+}
@@ -1,13 +1,17 @@
 package api;
 
-import android.util.Log;
-
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public class ModelResponse {
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list != null ? Collections.unmodifiableList(list) : null;
+    }
+
     public class LoginResponse {
         private String session_id;
         private String status;
@@ -248,7 +252,7 @@ public class ModelResponse {
         }
     }
 
-    public class RecipeResponse {
+    public static class RecipeResponse {
         private String status;
         private int results;
         private Data data;
@@ -277,7 +281,7 @@ public class ModelResponse {
             this.data = data;
         }
 
-        public class Data {
+        public static class Data {
             private List<Recipe> recipes;
 
             public List<Recipe> getRecipes() {
@@ -289,7 +293,14 @@ public class ModelResponse {
             }
         }
 
-        public class Recipe {
+        /**
+         * A recipe as list screens, the caches and the search index see it. Instances do not
+         * change once built, so copies and projections share their lists instead of copying
+         * them. Built by the JSON adapters and the recipe cache through Builder; screens that
+         * learn a newer rating or author name replace the recipe with withAverageRating or
+         * withAuthor. Static so instances do not hold on to the response they were parsed from.
+         */
+        public static class Recipe implements Cloneable {
             private String id;
             private String title;
             private String author;
@@ -298,45 +309,38 @@ public class ModelResponse {
             private List<String> instructions;
             private String time;
             private double averageRating;
+            private List<RecipeDetailResponse.Rating> rating;
 
-            public String getTime() {
-                return time;
+            // Used by Gson and the builders
+            Recipe() {
             }
-            public void setTime(String time) {
-                this.time = time;
-            }
-            private List<RecipeDetailResponse.Rating> rating;
 
             public String getId() {
                 return id;
             }
 
-            public void setId(String id) {
-                this.id = id;
-            }
-
             public String getTitle() {
                 return title;
             }
 
-            public void setTitle(String title) {
-                this.title = title;
-            }
-
             public String getAuthor() {
                 return author;
             }
 
-            public void setAuthor(String author) {
-                this.author = author;
-            }
-
             public String getImageUrl() {
                 return image_url;
             }
 
-            public void setImageUrl(String image_url) {
-                this.image_url = image_url;
+            public List<String> getIngredients() {
+                return ingredients;
+            }
+
+            public List<String> getInstructions() {
+                return instructions;
+            }
+
+            public String getTime() {
+                return time;
             }
 
             public double getAverageRating() {
@@ -358,39 +362,139 @@ public class ModelResponse {
                 return sum / rating.size();
             }
 
-            // Setter for the average rating field
-            public void setAverageRating(double averageRating) {
-                this.averageRating = averageRating;
-                // Log to verify it's being set
-                Log.d("Recipe", "Setting average rating to: " + averageRating + " for recipe: " + title);
+            /**
+             * The average rating exactly as sent or set, 0 when getAverageRating computes it
+             */
+            double getSentAverageRating() {
+                return averageRating;
             }
 
-            // Getter for the rating list
             public List<RecipeDetailResponse.Rating> getRating() {
                 return rating;
             }
 
-            // Setter for the rating list
-            public void setRating(List<RecipeDetailResponse.Rating> rating) {
-                this.rating = rating;
+            /**
+             * Copy with the average rating a rating load reported
+             */
+            public Recipe withAverageRating(double averageRating) {
+                Recipe copy = copy();
+                copy.averageRating = averageRating;
+                return copy;
             }
 
-            // With these correct getters:
-            public List<String> getIngredients() {
-                return ingredients;
+            /**
+             * Copy with the author shown as the given name instead of the author id
+             */
+            public Recipe withAuthor(String author) {
+                Recipe copy = copy();
+                copy.author = author;
+                return copy;
             }
 
-            public List<String> getInstructions() {
-                return instructions;
-            }
+            /**
+             * The recipe without the parts only the detail screen shows. Shares the lists
+             * of this recipe, so it costs one object
+             */
+            public Recipe toSummary() {
+                if (getClass() == Recipe.class) {
+                    return this;
+                }
 
-            // Keep your existing setters, but rename them:
-            public void setIngredients(List<String> ingredients) {
-                this.ingredients = ingredients;
+                Recipe summary = new Recipe();
+                summary.id = id;
+                summary.title = title;
+                summary.author = author;
+                summary.image_url = image_url;
+                summary.ingredients = ingredients;
+                summary.instructions = instructions;
+                summary.time = time;
+                summary.averageRating = averageRating;
+                summary.rating = rating;
+                return summary;
+            }
+
+            /**
+             * Shallow copy of the same class, the lists can be shared since nothing changes them
+             */
+            private Recipe copy() {
+                try {
+                    return (Recipe) clone();
+                } catch (CloneNotSupportedException e) {
+                    throw new AssertionError(e);
+                }
             }
 
-            public void setInstructions(List<String> instructions) {
-                this.instructions = instructions;
+            /**
+             * Collects the values of a recipe. The lists passed in are taken over, not copied,
+             * and must not be changed afterwards
+             */
+            public static class Builder {
+                private Recipe recipe;
+
+                public Builder() {
+                    this(new Recipe());
+                }
+
+                Builder(Recipe recipe) {
+                    this.recipe = recipe;
+                }
+
+                public Builder id(String id) {
+                    recipe.id = id;
+                    return this;
+                }
+
+                public Builder title(String title) {
+                    recipe.title = title;
+                    return this;
+                }
+
+                public Builder author(String author) {
+                    recipe.author = author;
+                    return this;
+                }
+
+                public Builder imageUrl(String imageUrl) {
+                    recipe.image_url = imageUrl;
+                    return this;
+                }
+
+                public Builder ingredients(List<String> ingredients) {
+                    recipe.ingredients = unmodifiable(ingredients);
+                    return this;
+                }
+
+                public Builder instructions(List<String> instructions) {
+                    recipe.instructions = unmodifiable(instructions);
+                    return this;
+                }
+
+                public Builder time(String time) {
+                    recipe.time = time;
+                    return this;
+                }
+
+                /**
+                 * Average rating the server sent, 0 to compute it from the rating list
+                 */
+                public Builder averageRating(double averageRating) {
+                    recipe.averageRating = averageRating;
+                    return this;
+                }
+
+                public Builder rating(List<RecipeDetailResponse.Rating> rating) {
+                    recipe.rating = unmodifiable(rating);
+                    return this;
+                }
+
+                /**
+                 * @return The recipe, the builder cannot be used afterwards
+                 */
+                public Recipe build() {
+                    Recipe built = recipe;
+                    recipe = null;
+                    return built;
+                }
             }
         }
     }
@@ -427,125 +531,70 @@ public class ModelResponse {
             }
         }
 
-        public static class Recipe {
-            private String id;
-            private String title;
-            private String author;
-            private String image_url;
-            private List<String> ingredients;
-            private List<String> instructions;
+        /**
+         * A recipe with everything the detail screen shows. It is a Recipe itself, so list
+         * code can take it as it is, and toSummary drops the comments without copying lists.
+         */
+        public static class Recipe extends RecipeResponse.Recipe {
             private String created_at;
             private String updated_at;
             private List<Comment> comments;
-            private List<Rating> rating;
-            private double AverageRating;
-            private String time;
-
-            public String getId() {
-                return id;
-            }
-
-            public void setId(String id) {
-                this.id = id;
-            }
-
-            public String getTitle() {
-                return title;
-            }
-
-            public void setTitle(String title) {
-                this.title = title;
-            }
-
-            public String getAuthor() {
-                return author;
-            }
-
-            public void setAuthor(String author) {
-                this.author = author;
-            }
-
-            public String getImageUrl() {
-                return image_url;
-            }
-
-            public void setImageUrl(String image_url) {
-                this.image_url = image_url;
-            }
-
-            public List<String> getIngredients() {
-                return ingredients;
-            }
 
-            public void setIngredients(List<String> ingredients) {
-                this.ingredients = ingredients;
-            }
-
-            public List<String> getInstructions() {
-                return instructions;
-            }
-
-            public void setInstructions(List<String> instructions) {
-                this.instructions = instructions;
+            // Used by Gson and the builder
+            Recipe() {
             }
 
             public String getCreatedAt() {
                 return created_at;
             }
 
-            public void setCreatedAt(String created_at) {
-                this.created_at = created_at;
-            }
-
             public String getUpdatedAt() {
                 return updated_at;
             }
 
-            public void setUpdatedAt(String updated_at) {
-                this.updated_at = updated_at;
-            }
-
             public List<Comment> getComments() {
                 return comments;
             }
 
-            public void setComments(List<Comment> comments) {
-                this.comments = comments;
+            // Method to get number of reviews
+            public int getReviewCount() {
+                return (getRating() != null) ? getRating().size() : 0;
             }
 
-            public List<Rating> getRatings() {
-                return rating;
-            }
+            public static class Builder extends RecipeResponse.Recipe.Builder {
+                private Recipe detail;
 
-            public void setRatings(List<Rating> rating) {
-                this.rating = rating;
-            }
+                public Builder() {
+                    this(new Recipe());
+                }
 
-            public String getTime() {
-                return time;
-            }
-            public void setTime(String time) {
-                this.time = time;
-            }
+                private Builder(Recipe detail) {
+                    super(detail);
+                    this.detail = detail;
+                }
 
-            // Method to calculate average rating
-            public double getAverageRating() {
-                if (rating == null || rating.isEmpty()) {
-                    return 0.0;
+                public Builder createdAt(String createdAt) {
+                    detail.created_at = createdAt;
+                    return this;
                 }
 
-                double sum = 0.0;
-                for (Rating r : rating) {
-                    sum += r.getRating();
+                public Builder updatedAt(String updatedAt) {
+                    detail.updated_at = updatedAt;
+                    return this;
                 }
-                return sum / rating.size();
-            }
 
-            // Setter for average rating
+                public Builder comments(List<Comment> comments) {
+                    detail.comments = unmodifiable(comments);
+                    return this;
+                }
 
-            // Method to get number of reviews
-            public int getReviewCount() {
-                return (rating != null) ? rating.size() : 0;
+                @Override
+                public Recipe build() {
+                    super.build();
+                    Recipe built = detail;
+                    detail = null;
+                    return built;
+                }
             }
         }
 
@@ -555,37 +604,32 @@ public class ModelResponse {
             private String content;
             private String created_at;
 
-            public String getId() {
-                return id;
+            // Used by Gson
+            private Comment() {
             }
 
-            public void setId(String id) {
+            public Comment(String id, String author_id, String content, String created_at) {
                 this.id = id;
+                this.author_id = author_id;
+                this.content = content;
+                this.created_at = created_at;
             }
 
-            public String getAuthor_id() {
-                return author_id;
+            public String getId() {
+                return id;
             }
 
-            public void setAuthor_id(String author_id) {
-                this.author_id = author_id;
+            public String getAuthor_id() {
+                return author_id;
             }
 
             public String getContent() {
                 return content;
             }
 
-            public void setContent(String content) {
-                this.content = content;
-            }
-
             public String getCreatedAt() {
                 return created_at;
             }
-
-            public void setCreatedAt(String created_at) {
-                this.created_at = created_at;
-            }
         }
 
         public static class Rating {
@@ -594,37 +638,32 @@ public class ModelResponse {
             private String user_id;
             private String created_at;
 
-            public String getId() {
-                return id;
+            // Used by Gson
+            private Rating() {
             }
 
-            public void setId(String id) {
+            public Rating(String id, int rating, String user_id, String created_at) {
                 this.id = id;
+                this.rating = rating;
+                this.user_id = user_id;
+                this.created_at = created_at;
             }
 
-            public int getRating() {
-                return rating;
+            public String getId() {
+                return id;
             }
 
-            public void setRating(int rating) {
-                this.rating = rating;
+            public int getRating() {
+                return rating;
             }
 
             public String getUserId() {
                 return user_id;
             }
 
-            public void setUserId(String user_id) {
-                this.user_id = user_id;
-            }
-
             public String getCreatedAt() {
                 return created_at;
             }
-
-            public void setCreatedAt(String created_at) {
-                this.created_at = created_at;
-            }
         }
     }
 
@@ -1114,6 +1153,40 @@ public class ModelResponse {
         }
     }
 
+    public class getRatingsBatchResponse {
+        private String status;
+        private Data data;
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Data getData() {
+            return data;
+        }
+
+        public void setData(Data data) {
+            this.data = data;
+        }
+
+        public class Data {
+            // Keyed by recipe id, recipes without ratings may be missing
+            private Map<String, getRatingResponse.Data> ratings;
+
+            public Map<String, getRatingResponse.Data> getRatings() {
+                return ratings;
+            }
+
+            public void setRatings(Map<String, getRatingResponse.Data> ratings) {
+                this.ratings = ratings;
+            }
+        }
+    }
+
     public class NotificationsResponse {
         private String status;
         private int results;
@@ -0,0 +1,60 @@
+package api;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * Wraps a request body and reports how many of its bytes have been written to the
+ * connection. Progress restarts from zero when OkHttp writes the body again on a retry.
+ */
+public class ProgressRequestBody extends RequestBody {
+
+    public interface ProgressListener {
+        /**
+         * Called on the thread writing the request
+         * @param totalBytes Length of the body, -1 if unknown
+         */
+        void onProgress(long bytesWritten, long totalBytes);
+    }
+
+    private final RequestBody delegate;
+    private final ProgressListener listener;
+
+    public ProgressRequestBody(RequestBody delegate, ProgressListener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        long totalBytes = contentLength();
+        BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+            private long bytesWritten = 0;
+
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                super.write(source, byteCount);
+                bytesWritten += byteCount;
+                listener.onProgress(bytesWritten, totalBytes);
+            }
+        });
+        delegate.writeTo(countingSink);
+        countingSink.flush();
+    }
+}
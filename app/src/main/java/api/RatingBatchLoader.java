@@ -0,0 +1,254 @@
+package api;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Collects rating requests made by a screen within a short window and resolves them
+ * with one get-recipes-rating call instead of one get-recipe-rating call per recipe.
+ *
+ * If the batch endpoint is not available on the server, requests fall back to
+ * single calls with a bounded number of them in flight. Recipes a batch response
+ * leaves out are looked up with single calls as well.
+ */
+public class RatingBatchLoader {
+    private static final String TAG = "RatingBatchLoader";
+    private static final long BATCH_WINDOW_MS = 30;
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final int MAX_PARALLEL_SINGLE_CALLS = 4;
+
+    private static RatingBatchLoader instance;
+
+    private final ApiService apiService;
+    private final Scheduler scheduler;
+
+    // Pending callbacks, grouped by authorization header then by recipe id
+    private final Map<String, LinkedHashMap<String, List<RatingCallback>>> pending = new HashMap<>();
+    private boolean flushScheduled = false;
+    private boolean batchEndpointAvailable = true;
+
+    // Fallback queue for single calls and the number of them currently running
+    private final Deque<SingleRequest> singleQueue = new ArrayDeque<>();
+    private int singleCallsInFlight = 0;
+
+    public interface RatingCallback {
+        void onRating(String recipeId, ModelResponse.getRatingResponse.Data rating);
+        void onError(String recipeId, String errorMessage);
+    }
+
+    /**
+     * Runs the flush at the end of a batch window, the main thread Handler in the app
+     */
+    interface Scheduler {
+        void postDelayed(Runnable task, long delayMs);
+    }
+
+    public static synchronized RatingBatchLoader getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new RatingBatchLoader(RetrofitClient.getApiService(), mainHandler::postDelayed);
+        }
+        return instance;
+    }
+
+    RatingBatchLoader(ApiService apiService, Scheduler scheduler) {
+        this.apiService = apiService;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues a rating lookup, the callback is invoked on the main thread
+     * @param authHeader Authorization header, e.g. "Bearer " + token
+     * @param recipeId Recipe to get the rating for
+     */
+    public synchronized void load(String authHeader, String recipeId, RatingCallback callback) {
+        LinkedHashMap<String, List<RatingCallback>> byRecipe = pending.get(authHeader);
+        if (byRecipe == null) {
+            byRecipe = new LinkedHashMap<>();
+            pending.put(authHeader, byRecipe);
+        }
+
+        List<RatingCallback> callbacks = byRecipe.get(recipeId);
+        if (callbacks == null) {
+            callbacks = new ArrayList<>();
+            byRecipe.put(recipeId, callbacks);
+        }
+        callbacks.add(callback);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.postDelayed(this::flush, BATCH_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Sends everything collected during the window
+     */
+    private synchronized void flush() {
+        flushScheduled = false;
+
+        for (Map.Entry<String, LinkedHashMap<String, List<RatingCallback>>> entry : pending.entrySet()) {
+            String authHeader = entry.getKey();
+            List<String> recipeIds = new ArrayList<>(entry.getValue().keySet());
+
+            for (int start = 0; start < recipeIds.size(); start += MAX_BATCH_SIZE) {
+                List<String> chunk = recipeIds.subList(start, Math.min(recipeIds.size(), start + MAX_BATCH_SIZE));
+                Map<String, List<RatingCallback>> chunkCallbacks = new LinkedHashMap<>();
+                for (String recipeId : chunk) {
+                    chunkCallbacks.put(recipeId, entry.getValue().get(recipeId));
+                }
+
+                if (batchEndpointAvailable) {
+                    fetchBatch(authHeader, chunkCallbacks);
+                } else {
+                    enqueueSingleCalls(authHeader, chunkCallbacks);
+                }
+            }
+        }
+
+        pending.clear();
+    }
+
+    /**
+     * Resolves a chunk of recipe ids with one batch request
+     */
+    private void fetchBatch(String authHeader, Map<String, List<RatingCallback>> chunkCallbacks) {
+        String ids = String.join(",", chunkCallbacks.keySet());
+        Log.d(TAG, "Fetching ratings for " + chunkCallbacks.size() + " recipes in one request");
+
+        apiService.getRecipeRatings(authHeader, ids).enqueue(new Callback<ModelResponse.getRatingsBatchResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<ModelResponse.getRatingsBatchResponse> call,
+                                   @NonNull Response<ModelResponse.getRatingsBatchResponse> response) {
+                if (response.isSuccessful() && response.body() != null &&
+                        response.body().getData() != null &&
+                        response.body().getData().getRatings() != null) {
+
+                    Map<String, ModelResponse.getRatingResponse.Data> ratings = response.body().getData().getRatings();
+                    Map<String, List<RatingCallback>> missing = new LinkedHashMap<>();
+                    for (Map.Entry<String, List<RatingCallback>> entry : chunkCallbacks.entrySet()) {
+                        ModelResponse.getRatingResponse.Data rating = ratings.get(entry.getKey());
+                        if (rating != null) {
+                            deliverRating(entry.getKey(), rating, entry.getValue());
+                        } else {
+                            missing.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+
+                    if (!missing.isEmpty()) {
+                        Log.d(TAG, missing.size() + " recipes missing from the batch response, using single calls");
+                        enqueueSingleCalls(authHeader, missing);
+                    }
+                } else {
+                    if (isEndpointMissing(response.code())) {
+                        Log.w(TAG, "Batch rating endpoint unavailable (" + response.code() + "), using single calls");
+                        markBatchEndpointUnavailable();
+                    } else {
+                        Log.e(TAG, "Batch rating request failed: " + response.code() + ", retrying with single calls");
+                    }
+                    enqueueSingleCalls(authHeader, chunkCallbacks);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ModelResponse.getRatingsBatchResponse> call, @NonNull Throwable t) {
+                Log.e(TAG, "Batch rating request failed: " + t.getMessage());
+                for (Map.Entry<String, List<RatingCallback>> entry : chunkCallbacks.entrySet()) {
+                    deliverError(entry.getKey(), "Request failed: " + t.getMessage(), entry.getValue());
+                }
+            }
+        });
+    }
+
+    private static boolean isEndpointMissing(int code) {
+        return code == 404 || code == 405 || code == 501;
+    }
+
+    private synchronized void markBatchEndpointUnavailable() {
+        batchEndpointAvailable = false;
+    }
+
+    /**
+     * Falls back to single get-recipe-rating calls, at most MAX_PARALLEL_SINGLE_CALLS at a time
+     */
+    private synchronized void enqueueSingleCalls(String authHeader, Map<String, List<RatingCallback>> chunkCallbacks) {
+        for (Map.Entry<String, List<RatingCallback>> entry : chunkCallbacks.entrySet()) {
+            singleQueue.add(new SingleRequest(authHeader, entry.getKey(), entry.getValue()));
+        }
+        startSingleCalls();
+    }
+
+    private synchronized void startSingleCalls() {
+        while (singleCallsInFlight < MAX_PARALLEL_SINGLE_CALLS && !singleQueue.isEmpty()) {
+            singleCallsInFlight++;
+            fetchSingle(singleQueue.poll());
+        }
+    }
+
+    private synchronized void onSingleCallFinished() {
+        singleCallsInFlight--;
+        startSingleCalls();
+    }
+
+    private void fetchSingle(SingleRequest request) {
+        apiService.getRecipeRating(request.authHeader, request.recipeId).enqueue(new Callback<ModelResponse.getRatingResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
+                                   @NonNull Response<ModelResponse.getRatingResponse> response) {
+                if (response.isSuccessful() && response.body() != null &&
+                        response.body().getData() != null) {
+                    deliverRating(request.recipeId, response.body().getData(), request.callbacks);
+                } else {
+                    deliverError(request.recipeId, "Response error: " + response.code(), request.callbacks);
+                }
+                onSingleCallFinished();
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
+                deliverError(request.recipeId, "Request failed: " + t.getMessage(), request.callbacks);
+                onSingleCallFinished();
+            }
+        });
+    }
+
+    private void deliverRating(String recipeId, ModelResponse.getRatingResponse.Data rating,
+                               List<RatingCallback> callbacks) {
+        for (RatingCallback callback : callbacks) {
+            callback.onRating(recipeId, rating);
+        }
+    }
+
+    private void deliverError(String recipeId, String errorMessage, List<RatingCallback> callbacks) {
+        for (RatingCallback callback : callbacks) {
+            callback.onError(recipeId, errorMessage);
+        }
+    }
+
+    private static class SingleRequest {
+        final String authHeader;
+        final String recipeId;
+        final List<RatingCallback> callbacks;
+
+        SingleRequest(String authHeader, String recipeId, List<RatingCallback> callbacks) {
+            this.authHeader = authHeader;
+            this.recipeId = recipeId;
+            this.callbacks = callbacks;
+        }
+    }
+}
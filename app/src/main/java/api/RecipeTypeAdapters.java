@@ -0,0 +1,528 @@
+package api;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written Gson adapters for the recipe list and recipe detail payloads, the largest
+ * and most frequent responses the app parses: catalog syncs, list screens and every opened
+ * recipe. They read fields by name straight into the model builders, so Gson does not
+ * reflect over the classes or allocate them through Unsafe.
+ *
+ * The remaining, small responses (users, notifications, comments, ratings) keep the
+ * reflective adapters, which are fast enough once the shared Gson has cached them.
+ *
+ * Field names match the JSON names the reflective adapters used, and write emits the stored
+ * fields as they are, so both produce the same JSON. RecipeTypeAdaptersTest compares the two
+ * and RecipeTypeAdaptersBenchmark times them. Unknown fields are skipped.
+ */
+final class RecipeTypeAdapters {
+
+    private RecipeTypeAdapters() {
+    }
+
+    static void register(GsonBuilder builder) {
+        RecipeAdapter recipeAdapter = new RecipeAdapter();
+        builder.registerTypeAdapter(ModelResponse.RecipeResponse.class, new RecipeResponseAdapter(recipeAdapter));
+        builder.registerTypeAdapter(ModelResponse.RecipeResponse.Recipe.class, recipeAdapter);
+        builder.registerTypeAdapter(ModelResponse.RecipeDetailResponse.Rating.class, new RatingAdapter());
+        RecipeDetailAdapter recipeDetailAdapter = new RecipeDetailAdapter();
+        builder.registerTypeAdapter(ModelResponse.RecipeDetailResponse.class,
+                new RecipeDetailResponseAdapter(recipeDetailAdapter));
+        builder.registerTypeAdapter(ModelResponse.RecipeDetailResponse.Recipe.class, recipeDetailAdapter);
+        builder.registerTypeAdapter(ModelResponse.RecipeDetailResponse.Comment.class, new CommentAdapter());
+    }
+
+    static class RecipeResponseAdapter extends TypeAdapter<ModelResponse.RecipeResponse> {
+        private final RecipeAdapter recipeAdapter;
+
+        RecipeResponseAdapter(RecipeAdapter recipeAdapter) {
+            this.recipeAdapter = recipeAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("status").value(response.getStatus());
+            out.name("results").value(response.getResults());
+            if (response.getData() != null) {
+                out.name("data").beginObject();
+                out.name("recipes");
+                writeList(out, response.getData().getRecipes(), recipeAdapter);
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ModelResponse.RecipeResponse response = new ModelResponse.RecipeResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "status":
+                        response.setStatus(in.nextString());
+                        break;
+                    case "results":
+                        response.setResults(in.nextInt());
+                        break;
+                    case "data":
+                        response.setData(readData(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private ModelResponse.RecipeResponse.Data readData(JsonReader in) throws IOException {
+            ModelResponse.RecipeResponse.Data data = new ModelResponse.RecipeResponse.Data();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("recipes".equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    data.setRecipes(readList(in, recipeAdapter));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return data;
+        }
+    }
+
+    static class RecipeAdapter extends TypeAdapter<ModelResponse.RecipeResponse.Recipe> {
+        private final RatingAdapter ratingAdapter = new RatingAdapter();
+
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeResponse.Recipe recipe) throws IOException {
+            if (recipe == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("id").value(recipe.getId());
+            out.name("title").value(recipe.getTitle());
+            out.name("author").value(recipe.getAuthor());
+            out.name("image_url").value(recipe.getImageUrl());
+            out.name("ingredients");
+            writeStrings(out, recipe.getIngredients());
+            out.name("instructions");
+            writeStrings(out, recipe.getInstructions());
+            out.name("time").value(recipe.getTime());
+            out.name("averageRating").value(recipe.getSentAverageRating());
+            out.name("rating");
+            writeList(out, recipe.getRating(), ratingAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeResponse.Recipe read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ModelResponse.RecipeResponse.Recipe.Builder recipe = new ModelResponse.RecipeResponse.Recipe.Builder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        recipe.id(in.nextString());
+                        break;
+                    case "title":
+                        recipe.title(in.nextString());
+                        break;
+                    case "author":
+                        recipe.author(in.nextString());
+                        break;
+                    case "image_url":
+                        recipe.imageUrl(in.nextString());
+                        break;
+                    case "ingredients":
+                        recipe.ingredients(readStrings(in));
+                        break;
+                    case "instructions":
+                        recipe.instructions(readStrings(in));
+                        break;
+                    case "time":
+                        recipe.time(in.nextString());
+                        break;
+                    case "averageRating":
+                        recipe.averageRating(in.nextDouble());
+                        break;
+                    case "rating":
+                        recipe.rating(readList(in, ratingAdapter));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return recipe.build();
+        }
+    }
+
+    static class RecipeDetailResponseAdapter extends TypeAdapter<ModelResponse.RecipeDetailResponse> {
+        private final RecipeDetailAdapter recipeAdapter;
+
+        RecipeDetailResponseAdapter(RecipeDetailAdapter recipeAdapter) {
+            this.recipeAdapter = recipeAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeDetailResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("status").value(response.getStatus());
+            if (response.getData() != null) {
+                out.name("data").beginObject();
+                out.name("recipe");
+                recipeAdapter.write(out, response.getData().getRecipe());
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeDetailResponse read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ModelResponse.RecipeDetailResponse response = new ModelResponse.RecipeDetailResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "status":
+                        response.setStatus(in.nextString());
+                        break;
+                    case "data":
+                        response.setData(readData(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private ModelResponse.RecipeDetailResponse.RecipeData readData(JsonReader in) throws IOException {
+            ModelResponse.RecipeDetailResponse.RecipeData data = new ModelResponse.RecipeDetailResponse.RecipeData();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("recipe".equals(name)) {
+                    data.setRecipe(recipeAdapter.read(in));
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return data;
+        }
+    }
+
+    static class RecipeDetailAdapter extends TypeAdapter<ModelResponse.RecipeDetailResponse.Recipe> {
+        private final RatingAdapter ratingAdapter = new RatingAdapter();
+        private final CommentAdapter commentAdapter = new CommentAdapter();
+
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeDetailResponse.Recipe recipe) throws IOException {
+            if (recipe == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("id").value(recipe.getId());
+            out.name("title").value(recipe.getTitle());
+            out.name("author").value(recipe.getAuthor());
+            out.name("image_url").value(recipe.getImageUrl());
+            out.name("ingredients");
+            writeStrings(out, recipe.getIngredients());
+            out.name("instructions");
+            writeStrings(out, recipe.getInstructions());
+            out.name("created_at").value(recipe.getCreatedAt());
+            out.name("updated_at").value(recipe.getUpdatedAt());
+            out.name("comments");
+            writeList(out, recipe.getComments(), commentAdapter);
+            out.name("rating");
+            writeList(out, recipe.getRating(), ratingAdapter);
+            out.name("time").value(recipe.getTime());
+            out.name("averageRating").value(recipe.getSentAverageRating());
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeDetailResponse.Recipe read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            ModelResponse.RecipeDetailResponse.Recipe.Builder recipe = new ModelResponse.RecipeDetailResponse.Recipe.Builder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        recipe.id(in.nextString());
+                        break;
+                    case "title":
+                        recipe.title(in.nextString());
+                        break;
+                    case "author":
+                        recipe.author(in.nextString());
+                        break;
+                    case "image_url":
+                        recipe.imageUrl(in.nextString());
+                        break;
+                    case "ingredients":
+                        recipe.ingredients(readStrings(in));
+                        break;
+                    case "instructions":
+                        recipe.instructions(readStrings(in));
+                        break;
+                    case "created_at":
+                        recipe.createdAt(in.nextString());
+                        break;
+                    case "updated_at":
+                        recipe.updatedAt(in.nextString());
+                        break;
+                    case "comments":
+                        recipe.comments(readList(in, commentAdapter));
+                        break;
+                    case "rating":
+                        recipe.rating(readList(in, ratingAdapter));
+                        break;
+                    case "time":
+                        recipe.time(in.nextString());
+                        break;
+                    case "averageRating":
+                        recipe.averageRating(in.nextDouble());
+                        break;
+                    default:
+                        // AverageRating is computed from the ratings, the sent value is not used
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return recipe.build();
+        }
+    }
+
+    static class CommentAdapter extends TypeAdapter<ModelResponse.RecipeDetailResponse.Comment> {
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeDetailResponse.Comment comment) throws IOException {
+            if (comment == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("id").value(comment.getId());
+            out.name("author_id").value(comment.getAuthor_id());
+            out.name("content").value(comment.getContent());
+            out.name("created_at").value(comment.getCreatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeDetailResponse.Comment read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String id = null;
+            String authorId = null;
+            String content = null;
+            String createdAt = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = in.nextString();
+                        break;
+                    case "author_id":
+                        authorId = in.nextString();
+                        break;
+                    case "content":
+                        content = in.nextString();
+                        break;
+                    case "created_at":
+                        createdAt = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new ModelResponse.RecipeDetailResponse.Comment(id, authorId, content, createdAt);
+        }
+    }
+
+    static class RatingAdapter extends TypeAdapter<ModelResponse.RecipeDetailResponse.Rating> {
+        @Override
+        public void write(JsonWriter out, ModelResponse.RecipeDetailResponse.Rating rating) throws IOException {
+            if (rating == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("id").value(rating.getId());
+            out.name("rating").value(rating.getRating());
+            out.name("user_id").value(rating.getUserId());
+            out.name("created_at").value(rating.getCreatedAt());
+            out.endObject();
+        }
+
+        @Override
+        public ModelResponse.RecipeDetailResponse.Rating read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String id = null;
+            int value = 0;
+            String userId = null;
+            String createdAt = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = in.nextString();
+                        break;
+                    case "rating":
+                        value = in.nextInt();
+                        break;
+                    case "user_id":
+                        userId = in.nextString();
+                        break;
+                    case "created_at":
+                        createdAt = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new ModelResponse.RecipeDetailResponse.Rating(id, value, userId, createdAt);
+        }
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                values.add(null);
+            } else {
+                values.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(adapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> values, TypeAdapter<T> adapter) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (T value : values) {
+            adapter.write(out, value);
+        }
+        out.endArray();
+    }
+}
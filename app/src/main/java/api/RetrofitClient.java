@@ -1,20 +1,98 @@
 package api;
 
+import android.content.Context;
+
+import java.io.File;
+
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class RetrofitClient {
     private static final String BASE_URL = "http://35.198.251.75/api/";
+    private static final String BASE_PATH = "/api/";
+    // Every call goes to the same host, so allow more than OkHttp's default of 5 at once
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024;
+
+    private static final SingleFlightInterceptor singleFlightInterceptor = new SingleFlightInterceptor();
+    private static final CacheMetricsInterceptor cacheMetricsInterceptor = new CacheMetricsInterceptor();
+    private static final CachePolicyInterceptor cachePolicyInterceptor = new CachePolicyInterceptor(BASE_PATH)
+            // Profile screens load the plain catalog, the sync's since requests are sent with no-store
+            .setPolicy("recipes/get-all-recipes", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-recipe-latest", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-random-recipe", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-recipe-id", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-recipe-rating", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-recipes-rating", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("recipes/get-recipe-comments", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("users/me", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("users/user/", CachePolicyInterceptor.CachePolicy.revalidate())
+            .setPolicy("users/saved-recipes", CachePolicyInterceptor.CachePolicy.revalidate());
+
     private static ApiService apiService;
+    private static Cache httpCache;
+
+    /**
+     * Enables the HTTP disk cache, call before the first request of the process
+     */
+    public static synchronized void init(Context context) {
+        if (httpCache != null) {
+            return;
+        }
+
+        File cacheDir = new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR);
+        httpCache = new Cache(cacheDir, HTTP_CACHE_SIZE);
+        // Rebuild if a request already created the client without a cache
+        apiService = null;
+    }
 
-    public static ApiService getApiService() {
+    public static synchronized ApiService getApiService() {
         if (apiService == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .addInterceptor(singleFlightInterceptor)
+                    .addInterceptor(cacheMetricsInterceptor)
+                    .addNetworkInterceptor(cachePolicyInterceptor);
+            if (httpCache != null) {
+                clientBuilder.cache(httpCache);
+            }
+
             Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .client(clientBuilder.build())
+                    .addConverterFactory(GsonConverterFactory.create(ApiGson.get()))
                     .build();
             apiService = retrofit.create(ApiService.class);
         }
         return apiService;
     }
+
+    /**
+     * Exposes hit/miss counters of the in-flight GET deduplication
+     */
+    public static SingleFlightInterceptor getSingleFlightInterceptor() {
+        return singleFlightInterceptor;
+    }
+
+    /**
+     * Exposes cache hits and bytes saved by the HTTP disk cache
+     */
+    public static CacheMetricsInterceptor getCacheMetrics() {
+        return cacheMetricsInterceptor;
+    }
+
+    /**
+     * Lets the app override how long responses of an endpoint may be reused,
+     * for endpoints where the server sends weak or missing cache headers
+     */
+    public static CachePolicyInterceptor getCachePolicies() {
+        return cachePolicyInterceptor;
+    }
 }
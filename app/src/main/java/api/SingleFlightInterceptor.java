@@ -0,0 +1,167 @@
+package api;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Lets identical GET requests that are in flight at the same time share one network exchange.
+ *
+ * Requests are identical when method, URL and Authorization header match. The first caller
+ * performs the request, later callers wait for it and each get their own copy of the body.
+ * If the first caller is cancelled, the waiting callers send the request themselves.
+ * Requests carrying STREAMING_HEADER are passed through, since sharing means buffering the body.
+ */
+public class SingleFlightInterceptor implements Interceptor {
+    // Marks a request whose body the caller reads as a stream, removed before it is sent
+    public static final String STREAMING_HEADER = "X-Streaming-Response";
+
+    private final ConcurrentHashMap<String, InFlightCall> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+        if (request.header(STREAMING_HEADER) != null) {
+            return chain.proceed(request.newBuilder().removeHeader(STREAMING_HEADER).build());
+        }
+
+        String key = request.method() + " " + request.url() + " " + request.header("Authorization");
+        InFlightCall call = new InFlightCall();
+        InFlightCall existing = inFlight.putIfAbsent(key, call);
+
+        if (existing != null) {
+            SharedResponse shared = existing.await();
+            if (shared == null) {
+                // The leading call was cancelled, which says nothing about this one
+                return intercept(chain);
+            }
+            hits.incrementAndGet();
+            return shared.newResponse(request);
+        }
+
+        misses.incrementAndGet();
+        SharedResponse shared = null;
+        Exception error = null;
+        try {
+            shared = SharedResponse.read(chain.proceed(request));
+            return shared.newResponse(request);
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            // Removed before the waiters are released, so one that redoes the request leads a new exchange
+            inFlight.remove(key, call);
+            if (shared != null) {
+                call.complete(shared);
+            } else if (chain.call().isCanceled()) {
+                call.abandon();
+            } else {
+                // error is null when an Error such as OutOfMemoryError ended the exchange
+                call.fail(error != null ? error : new IOException("Shared request did not complete"));
+            }
+        }
+    }
+
+    /**
+     * Number of GET requests that joined an exchange already in flight
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of GET requests that went to the network themselves
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class InFlightCall {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile SharedResponse response;
+        private volatile Exception error;
+        private volatile boolean abandoned;
+
+        void complete(SharedResponse response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        void fail(Exception error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        void abandon() {
+            this.abandoned = true;
+            done.countDown();
+        }
+
+        /**
+         * Response of the exchange, null if it was cancelled and the caller should send the request itself
+         */
+        SharedResponse await() throws IOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for shared request");
+            }
+
+            if (abandoned) {
+                return null;
+            }
+            if (error != null) {
+                throw new IOException("Shared request failed: " + error.getMessage(), error);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * A fully buffered response that can be handed out to several callers
+     */
+    private static class SharedResponse {
+        private final Response template;
+        private final MediaType contentType;
+        private final byte[] body;
+
+        private SharedResponse(Response template, MediaType contentType, byte[] body) {
+            this.template = template;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static SharedResponse read(Response response) throws IOException {
+            try (ResponseBody responseBody = response.body()) {
+                if (responseBody == null) {
+                    return new SharedResponse(response, null, new byte[0]);
+                }
+                return new SharedResponse(response, responseBody.contentType(), responseBody.bytes());
+            }
+        }
+
+        Response newResponse(Request request) {
+            return template.newBuilder()
+                    .request(request)
+                    .body(ResponseBody.create(body, contentType))
+                    .build();
+        }
+    }
+}
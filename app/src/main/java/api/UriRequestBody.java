@@ -0,0 +1,126 @@
+package api;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body that streams a content Uri straight into the connection, so picked images
+ * are uploaded without first being copied into a cache file.
+ *
+ * The stream is opened again on every write, which keeps the body usable when OkHttp
+ * retries a request.
+ */
+public class UriRequestBody extends RequestBody {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String DEFAULT_MEDIA_TYPE = "image/jpeg";
+
+    private final ContentResolver contentResolver;
+    private final Uri uri;
+    private final MediaType mediaType;
+    private long contentLength = -2;
+
+    public UriRequestBody(ContentResolver contentResolver, Uri uri, MediaType mediaType) {
+        this.contentResolver = contentResolver;
+        this.uri = uri;
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Multipart file part for an image Uri, typed with the type the provider reports
+     */
+    public static MultipartBody.Part createImagePart(Context context, String partName, Uri uri) {
+        ContentResolver contentResolver = context.getContentResolver();
+        String mimeType = contentResolver.getType(uri);
+        MediaType mediaType = MediaType.parse(mimeType != null ? mimeType : DEFAULT_MEDIA_TYPE);
+
+        String fileName = getDisplayName(contentResolver, uri);
+        if (fileName == null) {
+            fileName = "image_" + System.currentTimeMillis() + ".jpg";
+        }
+        return MultipartBody.Part.createFormData(partName, fileName,
+                new UriRequestBody(contentResolver, uri, mediaType));
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mediaType;
+    }
+
+    /**
+     * Size the provider reports, -1 if it does not know it, in which case the body is sent
+     * chunked
+     */
+    @Override
+    public synchronized long contentLength() {
+        if (contentLength == -2) {
+            contentLength = querySize();
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (InputStream input = contentResolver.openInputStream(uri)) {
+            if (input == null) {
+                throw new FileNotFoundException("Cannot open " + uri);
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                sink.write(buffer, 0, bytesRead);
+            }
+        }
+    }
+
+    private long querySize() {
+        try (Cursor cursor = contentResolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            // Some providers do not support the column, fall through to the descriptor
+        }
+
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(uri, "r")) {
+            if (descriptor != null && descriptor.getLength() != AssetFileDescriptor.UNKNOWN_LENGTH) {
+                return descriptor.getLength();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unknown, the body is sent chunked
+        }
+        return -1;
+    }
+
+    /**
+     * Name the provider shows for the Uri, or its last path segment
+     */
+    public static String getDisplayName(ContentResolver contentResolver, Uri uri) {
+        String result = null;
+        if ("content".equals(uri.getScheme())) {
+            try (Cursor cursor = contentResolver.query(uri, new String[]{OpenableColumns.DISPLAY_NAME},
+                    null, null, null)) {
+                if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                    result = cursor.getString(0);
+                }
+            }
+        }
+        if (result == null) {
+            result = uri.getLastPathSegment();
+        }
+        return result;
+    }
+}
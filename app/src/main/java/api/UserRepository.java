@@ -0,0 +1,213 @@
+package api;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * App-wide source of other users' profiles (name, avatar, country) for author lookups.
+ *
+ * Profiles are kept in a bounded LRU cache with a TTL, and concurrent lookups of the same
+ * user share one getUserById request, so binding 30 comments by one author costs one call.
+ */
+public class UserRepository {
+    private static final String TAG = "UserRepository";
+    private static final int MAX_CACHED_USERS = 200;
+    private static final long CACHE_TTL_MS = 10 * 60 * 1000L;
+
+    private static UserRepository instance;
+
+    private final ApiService apiService;
+    private final LruCache<String, CachedUser> cache = new LruCache<>(MAX_CACHED_USERS);
+    private final Map<String, List<UserCallback>> inFlight = new HashMap<>();
+
+    public interface UserCallback {
+        void onSuccess(ModelResponse.UserResponse.User user);
+        void onError(String errorMessage);
+    }
+
+    public interface BulkCallback {
+        /**
+         * @param users Users that could be resolved, keyed by id
+         */
+        void onComplete(Map<String, ModelResponse.UserResponse.User> users);
+    }
+
+    public static synchronized UserRepository getInstance() {
+        if (instance == null) {
+            instance = new UserRepository(RetrofitClient.getApiService());
+        }
+        return instance;
+    }
+
+    UserRepository(ApiService apiService) {
+        this.apiService = apiService;
+    }
+
+    /**
+     * Returns a cached, non-expired user or null, without hitting the network
+     */
+    public synchronized ModelResponse.UserResponse.User getCachedUser(String userId) {
+        if (userId == null) {
+            return null;
+        }
+
+        CachedUser cached = cache.get(userId);
+        if (cached == null) {
+            return null;
+        }
+
+        if (System.currentTimeMillis() - cached.fetchedAt > CACHE_TTL_MS) {
+            cache.remove(userId);
+            return null;
+        }
+        return cached.user;
+    }
+
+    /**
+     * Looks up a user, answering from cache when possible and joining an
+     * in-flight request for the same user otherwise
+     * @param authHeader Authorization header, e.g. "Bearer " + token
+     */
+    public void getUser(String authHeader, String userId, UserCallback callback) {
+        ModelResponse.UserResponse.User cachedUser = getCachedUser(userId);
+        if (cachedUser != null) {
+            callback.onSuccess(cachedUser);
+            return;
+        }
+
+        synchronized (this) {
+            List<UserCallback> waiting = inFlight.get(userId);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(userId, waiting);
+        }
+
+        apiService.getUserById(authHeader, userId).enqueue(new Callback<ModelResponse.UserResponse>() {
+            @Override
+            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call,
+                                   @NonNull Response<ModelResponse.UserResponse> response) {
+                if (response.isSuccessful() && response.body() != null &&
+                        response.body().getData() != null &&
+                        response.body().getData().getUser() != null) {
+
+                    ModelResponse.UserResponse.User user = response.body().getData().getUser();
+                    synchronized (UserRepository.this) {
+                        cache.put(userId, new CachedUser(user));
+                    }
+                    for (UserCallback waitingCallback : takeWaiting(userId)) {
+                        waitingCallback.onSuccess(user);
+                    }
+                } else {
+                    Log.e(TAG, "Failed to get user " + userId + ": " + response.code());
+                    for (UserCallback waitingCallback : takeWaiting(userId)) {
+                        waitingCallback.onError("Response error: " + response.code());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
+                Log.e(TAG, "Request for user " + userId + " failed: " + t.getMessage());
+                for (UserCallback waitingCallback : takeWaiting(userId)) {
+                    waitingCallback.onError("Request failed: " + t.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Looks up several users at once, the callback fires once every lookup has finished
+     */
+    public void getUsers(String authHeader, Collection<String> userIds, BulkCallback callback) {
+        Set<String> uniqueIds = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null && !userId.isEmpty()) {
+                uniqueIds.add(userId);
+            }
+        }
+
+        Map<String, ModelResponse.UserResponse.User> users = new HashMap<>();
+        if (uniqueIds.isEmpty()) {
+            callback.onComplete(users);
+            return;
+        }
+
+        final int[] remaining = {uniqueIds.size()};
+        for (String userId : uniqueIds) {
+            getUser(authHeader, userId, new UserCallback() {
+                @Override
+                public void onSuccess(ModelResponse.UserResponse.User user) {
+                    users.put(userId, user);
+                    onLookupFinished();
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    onLookupFinished();
+                }
+
+                private void onLookupFinished() {
+                    if (--remaining[0] == 0) {
+                        callback.onComplete(users);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Stores a user that was fetched elsewhere, e.g. after a profile update
+     */
+    public synchronized void put(ModelResponse.UserResponse.User user) {
+        if (user != null && user.getId() != null) {
+            cache.put(user.getId(), new CachedUser(user));
+        }
+    }
+
+    /**
+     * Drops a user so the next lookup goes to the network
+     */
+    public synchronized void invalidate(String userId) {
+        if (userId != null) {
+            cache.remove(userId);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        cache.evictAll();
+    }
+
+    private synchronized List<UserCallback> takeWaiting(String userId) {
+        List<UserCallback> waiting = inFlight.remove(userId);
+        return waiting != null ? waiting : new ArrayList<>();
+    }
+
+    private static class CachedUser {
+        final ModelResponse.UserResponse.User user;
+        final long fetchedAt;
+
+        CachedUser(ModelResponse.UserResponse.User user) {
+            this.user = user;
+            this.fetchedAt = System.currentTimeMillis();
+        }
+    }
+}
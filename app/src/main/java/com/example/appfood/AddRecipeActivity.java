@@ -1,14 +1,10 @@
 package com.example.appfood;
 
-import android.app.ProgressDialog;
 import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.provider.MediaStore;
-import android.util.Log;
 import android.view.View;
 import android.widget.EditText;
 import android.widget.ImageButton;
@@ -21,27 +17,11 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.gson.Gson;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import adapter.IngredientsAdapter;
-import api.ApiService;
-import api.ModelResponse;
-import api.RetrofitClient;
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class AddRecipeActivity extends AppCompatActivity {
 
@@ -54,7 +34,6 @@ public class AddRecipeActivity extends AppCompatActivity {
     private ImageView ivRecipeImage;
     private Uri imageUri;
     private ImageButton ibBack;
-    private ProgressDialog progressDialog;
     private TextView tvRecipeImage;
 
     @Override
@@ -85,10 +64,6 @@ public class AddRecipeActivity extends AppCompatActivity {
         ivRecipeImage = findViewById(R.id.iv_add_recipe_image);
         ibBack = findViewById(R.id.ib_add_recipe_back);
         tvRecipeImage = findViewById(R.id.tv_add_recipe_image);
-
-        progressDialog = new ProgressDialog(this);
-        progressDialog.setMessage("Submitting recipe...");
-        progressDialog.setCancelable(false);
     }
 
     private void initRecyclerView() {
@@ -179,161 +154,16 @@ public class AddRecipeActivity extends AppCompatActivity {
             return;
         }
 
-        progressDialog.show();
-
-        try {
-            List<String> instructionsList = new ArrayList<>();
-            for (String instruction : instructionsText.split("\\n")) {
-                if (!instruction.trim().isEmpty()) {
-                    instructionsList.add(instruction.trim());
-                }
-            }
-
-            String ingredientsJson = new Gson().toJson(ingredientsList);
-            String instructionsJson = new Gson().toJson(instructionsList);
-
-            Log.d(TAG, "Ingredients JSON: " + ingredientsJson);
-            Log.d(TAG, "Instructions JSON: " + instructionsJson);
-
-            Map<String, RequestBody> partMap = new HashMap<>();
-
-            partMap.put("title", createPartFromString(title));
-            partMap.put("time", createPartFromString(time));
-            partMap.put("ingredients", createPartFromString(ingredientsJson));
-            partMap.put("instructions", createPartFromString(instructionsJson));
-
-            MultipartBody.Part imagePart = prepareImagePart("imageRecipe", imageUri);
-
-            ApiService apiService = RetrofitClient.getApiService();
-            Call<ModelResponse.RecipeDetailResponse> call = apiService.addRecipeWithParts(
-                    "Bearer " + token,
-                    partMap,
-                    imagePart);
-
-            call.enqueue(new Callback<ModelResponse.RecipeDetailResponse>() {
-                @Override
-                public void onResponse(Call<ModelResponse.RecipeDetailResponse> call, Response<ModelResponse.RecipeDetailResponse> response) {
-                    progressDialog.dismiss();
-                    if (response.isSuccessful() && response.body() != null) {
-                        Toast.makeText(AddRecipeActivity.this, "Recipe added successfully!", Toast.LENGTH_SHORT).show();
-                        finish();
-                    } else {
-                        String errorMessage = "Failed to add recipe. Status code: " + response.code();
-                        try {
-                            if (response.errorBody() != null) {
-                                errorMessage += "\nError: " + response.errorBody().string();
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        Log.e(TAG, errorMessage);
-                        Toast.makeText(AddRecipeActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                    }
-                }
-
-                @Override
-                public void onFailure(Call<ModelResponse.RecipeDetailResponse> call, Throwable t) {
-                    progressDialog.dismiss();
-                    Log.e(TAG, "API call failed", t);
-                    Toast.makeText(AddRecipeActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                }
-            });
-
-        } catch (Exception e) {
-            progressDialog.dismiss();
-            Log.e(TAG, "Error submitting recipe", e);
-            Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }
-    }
-
-    /**
-     * Create a part from a string value with proper content type
-     */
-    private RequestBody createPartFromString(String value) {
-        return RequestBody.create(MediaType.parse("text/plain"), value);
-    }
-
-    /**
-     * Prepare image file for upload
-     */
-    private MultipartBody.Part prepareImagePart(String partName, Uri imageUri) {
-        try {
-            File imageFile = createFileFromUri(imageUri);
-
-            String mimeType = getContentResolver().getType(imageUri);
-            if (mimeType == null) {
-                mimeType = "image/jpeg";
-            }
-
-            RequestBody requestFile = RequestBody.create(MediaType.parse(mimeType), imageFile);
-
-            return MultipartBody.Part.createFormData(partName, imageFile.getName(), requestFile);
-        } catch (Exception e) {
-            Log.e(TAG, "Error preparing image", e);
-            Toast.makeText(this, "Error preparing image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            throw new RuntimeException("Failed to prepare image");
-        }
-    }
-
-    /**
-     * Create a File from a content URI
-     */
-    private File createFileFromUri(Uri uri) throws IOException {
-        String fileName = getFileNameFromUri(uri);
-        if (fileName == null) {
-            fileName = "image_" + System.currentTimeMillis() + ".jpg";
-        }
-
-        File file = new File(getCacheDir(), fileName);
-
-        InputStream inputStream = getContentResolver().openInputStream(uri);
-        if (inputStream == null) {
-            throw new IOException("Cannot open input stream for URI: " + uri);
-        }
-
-        FileOutputStream outputStream = new FileOutputStream(file);
-
-        byte[] buffer = new byte[4096];
-        int bytesRead;
-        while ((bytesRead = inputStream.read(buffer)) != -1) {
-            outputStream.write(buffer, 0, bytesRead);
-        }
-
-        outputStream.close();
-        inputStream.close();
-
-        Log.d(TAG, "Created file from URI: " + file.getAbsolutePath() + ", size: " + file.length());
-        return file;
-    }
-
-    /**
-     * Get file name from URI
-     */
-    private String getFileNameFromUri(Uri uri) {
-        String result = null;
-        if ("content".equals(uri.getScheme())) {
-            try (Cursor cursor = getContentResolver().query(uri, null, null, null, null)) {
-                if (cursor != null && cursor.moveToFirst()) {
-                    int columnIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
-                    if (columnIndex >= 0) {
-                        result = cursor.getString(columnIndex);
-                    }
-                }
-            }
-        }
-
-        if (result == null) {
-            result = uri.getPath();
-            if (result != null) {
-                int cut = result.lastIndexOf('/');
-                if (cut != -1) {
-                    result = result.substring(cut + 1);
-                }
-            } else {
-                result = "image_" + System.currentTimeMillis() + ".jpg";
+        List<String> instructionsList = new ArrayList<>();
+        for (String instruction : instructionsText.split("\\n")) {
+            if (!instruction.trim().isEmpty()) {
+                instructionsList.add(instruction.trim());
             }
         }
 
-        return result;
+        // Uploaded in the background with retries, the screen can close right away
+        RecipeUploadQueue.enqueue(this, token, title, time, ingredientsList, instructionsList, imageUri);
+        Toast.makeText(this, "Publishing your recipe...", Toast.LENGTH_SHORT).show();
+        finish();
     }
 }
\ No newline at end of file
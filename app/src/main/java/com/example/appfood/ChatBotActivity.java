@@ -19,7 +19,6 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.IOException;
@@ -29,6 +28,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import adapter.MessageAdapter;
+import api.ApiGson;
 import api.ApiService;
 import api.ModelResponse;
 import api.RetrofitClient;
@@ -42,7 +42,6 @@ public class ChatBotActivity extends AppCompatActivity implements MessageAdapter
     private static final String BEARER_PREFIX = "Bearer ";
     private static final String PREF_CHAT_HISTORY = "chat_history";
     private static final int MAX_CONCURRENT_REQUESTS = 5;
-    private final ModelResponse modelResponse = new ModelResponse();
     // UI components
     private RecyclerView recyclerView;
     private MessageAdapter messageAdapter;
@@ -365,22 +364,8 @@ public class ChatBotActivity extends AppCompatActivity implements MessageAdapter
                             response.body().getData() != null &&
                             response.body().getData().getRecipe() != null) {
 
-                        // Convert RecipeDetail to Recipe for adapter
-                        ModelResponse.RecipeDetailResponse.Recipe detailedRecipe =
-                                response.body().getData().getRecipe();
-
-                        // Create a RecipeResponse instance from ModelResponse to build the Recipe object
-                        ModelResponse.RecipeResponse recipeResponse = modelResponse.new RecipeResponse();
-
-                        // Create the Recipe instance from the RecipeResponse instance
-                        ModelResponse.RecipeResponse.Recipe recipe = recipeResponse.new Recipe();
-
-                        recipe.setId(detailedRecipe.getId());
-                        recipe.setTitle(detailedRecipe.getTitle());
-                        recipe.setAuthor(detailedRecipe.getAuthor());
-                        recipe.setImageUrl(detailedRecipe.getImageUrl());
-                        recipe.setIngredients(detailedRecipe.getIngredients());
-                        recipe.setInstructions(detailedRecipe.getInstructions());
+                        // The adapter only needs the summary, which shares the detail's lists
+                        ModelResponse.RecipeResponse.Recipe recipe = response.body().getData().getRecipe().toSummary();
 
                         // Add to our list
                         synchronized (recipeDetails) {
@@ -466,8 +451,7 @@ public class ChatBotActivity extends AppCompatActivity implements MessageAdapter
     private void saveChatHistory() {
         Log.d(TAG, "Saving chat history");
         SharedPreferences.Editor editor = sharedPreferences.edit();
-        Gson gson = new Gson();
-        String json = gson.toJson(messageAdapter.getMessages());
+        String json = ApiGson.get().toJson(messageAdapter.getMessages());
         editor.putString(PREF_CHAT_HISTORY, json);
         editor.apply();
     }
@@ -480,9 +464,8 @@ public class ChatBotActivity extends AppCompatActivity implements MessageAdapter
         String json = sharedPreferences.getString(PREF_CHAT_HISTORY, null);
         if (json != null) {
             try {
-                Gson gson = new Gson();
                 Type type = new TypeToken<ArrayList<ChatMessage>>() {}.getType();
-                List<ChatMessage> savedMessages = gson.fromJson(json, type);
+                List<ChatMessage> savedMessages = ApiGson.get().fromJson(json, type);
                 messageAdapter.setMessages(savedMessages);
                 Log.d(TAG, "Loaded " + savedMessages.size() + " messages from history");
             } catch (Exception e) {
@@ -19,13 +19,16 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import adapter.CommentAdapter;
 import api.ApiService;
 import api.ModelResponse;
 import api.RetrofitClient;
+import api.UserRepository;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -308,6 +311,9 @@ public class CommentsRecipe extends AppCompatActivity implements CommentAdapter.
             commentList.clear();
             commentList.addAll(newComments);
 
+            // Warm the shared user cache so each author is fetched once for the whole thread
+            prefetchCommentAuthors(newComments);
+
             // Update UI with comments data
             updateUI();
         } else {
@@ -316,6 +322,22 @@ public class CommentsRecipe extends AppCompatActivity implements CommentAdapter.
         }
     }
 
+    /**
+     * Resolves all comment authors in one bulk lookup and rebinds once they are known
+     */
+    private void prefetchCommentAuthors(List<ModelResponse.CommentResponse.Comment> comments) {
+        Set<String> authorIds = new HashSet<>();
+        for (ModelResponse.CommentResponse.Comment comment : comments) {
+            authorIds.add(comment.getAuthor_id());
+        }
+
+        UserRepository.getInstance().getUsers(BEARER_PREFIX + token, authorIds, users -> {
+            if (!users.isEmpty() && commentAdapter != null) {
+                commentAdapter.notifyDataSetChanged();
+            }
+        });
+    }
+
     /**
      * Post a new comment to the recipe
      * @param commentText Comment content
@@ -0,0 +1,124 @@
+package com.example.appfood;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how fresh each section of a screen is, so that returning to the screen
+ * only refetches what is stale instead of reloading everything.
+ *
+ * A section is stale when it was never loaded, when its TTL has elapsed, when it was
+ * invalidated locally, or when another screen signalled a change to its data.
+ */
+public class FreshnessPolicy {
+
+    public enum Section {
+        SAVED_RECIPES(5 * 60 * 1000L),
+        COMMON_RECIPES(10 * 60 * 1000L),
+        NEW_RECIPES(5 * 60 * 1000L),
+        ALL_RECIPES(30 * 60 * 1000L),
+        RATINGS(5 * 60 * 1000L),
+        USER_PROFILE(15 * 60 * 1000L);
+
+        private final long defaultTtlMs;
+
+        Section(long defaultTtlMs) {
+            this.defaultTtlMs = defaultTtlMs;
+        }
+
+        public long getDefaultTtlMs() {
+            return defaultTtlMs;
+        }
+    }
+
+    // Process-wide change signals, bumped by screens that modify the data behind a section
+    private static final Map<Section, AtomicLong> changeSignals = new EnumMap<>(Section.class);
+
+    static {
+        for (Section section : Section.values()) {
+            changeSignals.put(section, new AtomicLong(0));
+        }
+    }
+
+    private final Map<Section, Long> ttlOverrides = new EnumMap<>(Section.class);
+    private final Map<Section, Long> loadedAt = new EnumMap<>(Section.class);
+    private final Map<Section, Long> loadedSignal = new EnumMap<>(Section.class);
+
+    /**
+     * Signals that the data behind the given sections changed on the server
+     */
+    public static void signalChanged(Section... sections) {
+        for (Section section : sections) {
+            changeSignals.get(section).incrementAndGet();
+        }
+    }
+
+    /**
+     * Overrides the TTL of a section for this policy instance
+     */
+    public FreshnessPolicy setTtl(Section section, long ttlMs) {
+        ttlOverrides.put(section, ttlMs);
+        return this;
+    }
+
+    /**
+     * Returns the TTL in effect for a section
+     */
+    public long getTtl(Section section) {
+        Long ttl = ttlOverrides.get(section);
+        return ttl != null ? ttl : section.getDefaultTtlMs();
+    }
+
+    /**
+     * Records a successful load of a section
+     */
+    public synchronized void markFresh(Section section) {
+        loadedAt.put(section, System.currentTimeMillis());
+        loadedSignal.put(section, changeSignals.get(section).get());
+    }
+
+    /**
+     * Checks if a section has to be fetched again
+     */
+    public synchronized boolean isStale(Section section) {
+        Long timestamp = loadedAt.get(section);
+        if (timestamp == null) {
+            return true;
+        }
+
+        if (System.currentTimeMillis() - timestamp > getTtl(section)) {
+            return true;
+        }
+
+        return loadedSignal.get(section) != changeSignals.get(section).get();
+    }
+
+    /**
+     * Checks if any of the given sections has to be fetched again
+     */
+    public boolean isAnyStale(Section... sections) {
+        for (Section section : sections) {
+            if (isStale(section)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forces a section to be fetched on the next refresh
+     */
+    public synchronized void invalidate(Section section) {
+        loadedAt.remove(section);
+        loadedSignal.remove(section);
+    }
+
+    /**
+     * Forces every section to be fetched on the next refresh
+     */
+    public synchronized void invalidateAll() {
+        loadedAt.clear();
+        loadedSignal.clear();
+    }
+}
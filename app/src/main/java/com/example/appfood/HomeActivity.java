@@ -21,6 +21,7 @@ import fragment.NotificationsFragment;
 import fragment.ProfileFragment;
 import android.Manifest;
 
+import api.RetrofitClient;
 import services.NotificationService;
 
 public class HomeActivity extends AppCompatActivity {
@@ -35,6 +36,12 @@ public class HomeActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        // Enable the HTTP cache before any request is made
+        RetrofitClient.init(this);
+
+        // Finish recipe uploads an earlier session left unfinished
+        RecipeUploadQueue.resume(this);
+
         // Initialize notification service early
         notificationService = NotificationService.getInstance(this);
 
@@ -90,6 +97,8 @@ public class HomeActivity extends AppCompatActivity {
         // Stop continuous notification checking when app goes to background
         Log.d(TAG, "Stopping continuous notification checking in onPause");
         notificationService.stopContinuousChecking();
+
+        RetrofitClient.getCacheMetrics().logSummary();
     }
 
     private String getTokenFromPreferences() {
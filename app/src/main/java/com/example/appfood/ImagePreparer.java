@@ -0,0 +1,214 @@
+package com.example.appfood;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Shrinks a picked or captured photo before it is uploaded. The photo is decoded with
+ * inSampleSize close to the target size, so a 12 MP image never fully lands in memory,
+ * then scaled and rotated upright in one pass and encoded as JPEG within a byte budget.
+ * A perceptual hash of the result is computed on the way, see PreparedImage.
+ *
+ * Decoding is slow, call it off the main thread.
+ */
+public final class ImagePreparer {
+    private static final int START_QUALITY = 85;
+    private static final int MIN_QUALITY = 50;
+    private static final int QUALITY_STEP = 10;
+
+    // dHash compares each pixel of a 9x8 grayscale thumbnail with its right neighbour
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    private ImagePreparer() {
+    }
+
+    public static final class PreparedImage {
+        private final byte[] jpeg;
+        private final long perceptualHash;
+
+        PreparedImage(byte[] jpeg, long perceptualHash) {
+            this.jpeg = jpeg;
+            this.perceptualHash = perceptualHash;
+        }
+
+        public byte[] getJpeg() {
+            return jpeg;
+        }
+
+        /**
+         * 64-bit dHash of the upright image. Re-encoded, resized or slightly edited copies of
+         * a photo differ from it in only a few bits
+         */
+        public long getPerceptualHash() {
+            return perceptualHash;
+        }
+    }
+
+    /**
+     * Downscaled, upright JPEG of the image, small enough to be uploaded from memory, and
+     * its perceptual hash
+     * @param maxDimension Longest side of the result in pixels
+     * @param maxBytes Size to aim for, quality is lowered until it fits or reaches MIN_QUALITY
+     */
+    public static PreparedImage prepareForUpload(Context context, Uri imageUri, int maxDimension, int maxBytes)
+            throws IOException {
+        ContentResolver contentResolver = context.getContentResolver();
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream input = open(contentResolver, imageUri)) {
+            BitmapFactory.decodeStream(input, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + imageUri);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxDimension);
+        Bitmap sampled;
+        try (InputStream input = open(contentResolver, imageUri)) {
+            sampled = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Could not decode " + imageUri);
+        }
+
+        Bitmap upright = scaleAndRotate(sampled, maxDimension, readOrientation(contentResolver, imageUri));
+        try {
+            return new PreparedImage(compress(upright, maxBytes), perceptualHash(upright));
+        } finally {
+            upright.recycle();
+        }
+    }
+
+    /**
+     * Largest power of two that keeps the longest side at or above maxDimension
+     */
+    static int sampleSize(int width, int height, int maxDimension) {
+        int longestSide = Math.max(width, height);
+        int sampleSize = 1;
+        while (longestSide / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Bitmap scaleAndRotate(Bitmap bitmap, int maxDimension, int orientation) {
+        Matrix matrix = new Matrix();
+        int longestSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longestSide > maxDimension) {
+            float scale = (float) maxDimension / longestSide;
+            matrix.postScale(scale, scale);
+        }
+
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                break;
+        }
+
+        if (matrix.isIdentity()) {
+            return bitmap;
+        }
+        Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (transformed != bitmap) {
+            bitmap.recycle();
+        }
+        return transformed;
+    }
+
+    /**
+     * Number of bits two perceptual hashes differ in, 0 for the same picture
+     */
+    public static int hashDistance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static long perceptualHash(Bitmap bitmap) {
+        Bitmap thumbnail = Bitmap.createScaledBitmap(bitmap, HASH_WIDTH, HASH_HEIGHT, true);
+        int[] pixels = new int[HASH_WIDTH * HASH_HEIGHT];
+        thumbnail.getPixels(pixels, 0, HASH_WIDTH, 0, 0, HASH_WIDTH, HASH_HEIGHT);
+        if (thumbnail != bitmap) {
+            thumbnail.recycle();
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = luminance(pixels[y * HASH_WIDTH + x]);
+                int right = luminance(pixels[y * HASH_WIDTH + x + 1]);
+                hash = (hash << 1) | (left < right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private static int luminance(int color) {
+        return (((color >> 16) & 0xFF) * 299 + ((color >> 8) & 0xFF) * 587 + (color & 0xFF) * 114) / 1000;
+    }
+
+    private static byte[] compress(Bitmap bitmap, int maxBytes) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(maxBytes);
+        int quality = START_QUALITY;
+        while (true) {
+            output.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, output);
+            if (output.size() <= maxBytes || quality - QUALITY_STEP < MIN_QUALITY) {
+                return output.toByteArray();
+            }
+            quality -= QUALITY_STEP;
+        }
+    }
+
+    /**
+     * EXIF orientation of the image, ORIENTATION_NORMAL if it has none or cannot be read
+     */
+    private static int readOrientation(ContentResolver contentResolver, Uri imageUri) {
+        try (InputStream input = open(contentResolver, imageUri)) {
+            return new ExifInterface(input).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException e) {
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static InputStream open(ContentResolver contentResolver, Uri imageUri) throws IOException {
+        InputStream input = contentResolver.openInputStream(imageUri);
+        if (input == null) {
+            throw new IOException("Cannot open " + imageUri);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.appfood;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import api.ApiGson;
+import api.ModelResponse;
+
+/**
+ * Remembers image search results by the perceptual hash of the searched photo, so
+ * searching the same picture again, even a resized or recompressed copy of it, opens the
+ * results without uploading anything. The hash is of the whole downscaled image, so crops
+ * and new shots of the same dish usually land too far away to match.
+ *
+ * Entries are kept in a small JSON file in the cache directory, which the system may
+ * clear, and loaded on first use. Reads and writes touch the disk, call them off the
+ * main thread.
+ */
+public final class ImageSearchCache {
+    private static final String TAG = "ImageSearchCache";
+    private static final String STORE_FILENAME = "image_search_cache.json";
+
+    static final int MAX_ENTRIES = 20;
+    static final long TTL_MS = 24 * 60 * 60 * 1000L;
+    // Out of 64 bits, photos of different dishes are usually 20 or more apart
+    static final int MAX_DISTANCE = 6;
+
+    private static final Type ENTRY_LIST_TYPE = new TypeToken<List<Entry>>(){}.getType();
+
+    // Most recently stored first, null until loaded
+    private static List<Entry> entries;
+
+    static class Entry {
+        long hash;
+        long savedAt;
+        ModelResponse.searchImageResponse response;
+
+        Entry(long hash, long savedAt, ModelResponse.searchImageResponse response) {
+            this.hash = hash;
+            this.savedAt = savedAt;
+            this.response = response;
+        }
+    }
+
+    private ImageSearchCache() {
+    }
+
+    /**
+     * Stored result of the closest earlier search within MAX_DISTANCE bits of the hash,
+     * null if there is none that has not expired
+     */
+    public static synchronized ModelResponse.searchImageResponse find(Context context, long hash) {
+        Entry closest = findClosest(loadEntries(context), hash, System.currentTimeMillis());
+        if (closest == null) {
+            return null;
+        }
+        Log.d(TAG, "Reusing image search result " + ImagePreparer.hashDistance(hash, closest.hash) + " bits away");
+        return closest.response;
+    }
+
+    /**
+     * Stores a successful search result, replacing the ones for near-identical images
+     */
+    public static synchronized void put(Context context, long hash, ModelResponse.searchImageResponse response) {
+        insert(loadEntries(context), new Entry(hash, System.currentTimeMillis(), response));
+        saveEntries(context);
+    }
+
+    /**
+     * The entry closest to the hash within MAX_DISTANCE bits that has not expired at now
+     */
+    static Entry findClosest(List<Entry> entries, long hash, long now) {
+        Entry closest = null;
+        int closestDistance = MAX_DISTANCE + 1;
+        for (Entry entry : entries) {
+            if (isExpired(entry, now) || entry.response == null) {
+                continue;
+            }
+            int distance = ImagePreparer.hashDistance(hash, entry.hash);
+            if (distance < closestDistance) {
+                closest = entry;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Adds the entry in front, dropping expired entries, the ones within MAX_DISTANCE bits
+     * of it and the oldest beyond MAX_ENTRIES
+     */
+    static void insert(List<Entry> entries, Entry added) {
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (isExpired(entry, added.savedAt) || ImagePreparer.hashDistance(added.hash, entry.hash) <= MAX_DISTANCE) {
+                iterator.remove();
+            }
+        }
+
+        entries.add(0, added);
+        while (entries.size() > MAX_ENTRIES) {
+            entries.remove(entries.size() - 1);
+        }
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return now - entry.savedAt > TTL_MS || entry.savedAt > now;
+    }
+
+    private static List<Entry> loadEntries(Context context) {
+        if (entries != null) {
+            return entries;
+        }
+
+        entries = new ArrayList<>();
+        // Earlier versions kept the store with the app's files, where nothing ever cleared it
+        new File(context.getFilesDir(), STORE_FILENAME).delete();
+        AtomicFile store = new AtomicFile(new File(context.getCacheDir(), STORE_FILENAME));
+        try (Reader reader = new InputStreamReader(store.openRead(), StandardCharsets.UTF_8)) {
+            List<Entry> stored = ApiGson.get().fromJson(reader, ENTRY_LIST_TYPE);
+            if (stored != null) {
+                entries.addAll(stored);
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing was searched yet
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "Error reading image search cache: " + e.getMessage());
+        }
+        return entries;
+    }
+
+    private static void saveEntries(Context context) {
+        AtomicFile store = new AtomicFile(new File(context.getCacheDir(), STORE_FILENAME));
+        FileOutputStream output = null;
+        try {
+            output = store.startWrite();
+            output.write(ApiGson.get().toJson(entries, ENTRY_LIST_TYPE).getBytes(StandardCharsets.UTF_8));
+            store.finishWrite(output);
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving image search cache: " + e.getMessage());
+            if (output != null) {
+                store.failWrite(output);
+            }
+        }
+    }
+}
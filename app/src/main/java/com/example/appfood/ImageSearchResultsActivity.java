@@ -18,11 +18,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import adapter.SavedRecipesAdapter;
 import api.ApiService;
 import api.ModelResponse;
+import api.RatingBatchLoader;
 import api.RetrofitClient;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -31,6 +34,7 @@ import retrofit2.Response;
 public class ImageSearchResultsActivity extends AppCompatActivity {
     private static final String TAG = "ImageSearchResults";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final int MAX_PANTRY_RECIPES = 10;
 
     private RecyclerView recyclerView;
     private TextView titleTextView;
@@ -42,14 +46,17 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
     private ArrayList<String> recipeIds;
     private ArrayList<String> recipeTitles;
     private ArrayList<Double> similarities;
+    private ArrayList<String> extractedIngredients;
     private String token;
 
+    // Cached recipes that use the ingredients found in the photo, shown after the search results
+    private final ExecutorService pantryExecutor = Executors.newSingleThreadExecutor();
+    private List<ModelResponse.RecipeResponse.Recipe> pantryRecipes;
+    private boolean recipeDetailsLoaded = false;
+
     // Map to track saved recipes
     private Map<String, Boolean> savedRecipesMap = new HashMap<>();
 
-    // Create a ModelResponse instance to use for recipe creation
-    private final ModelResponse modelResponse = new ModelResponse();
-
     // Track loading operations
     private AtomicInteger pendingLoads = new AtomicInteger(0);
 
@@ -75,6 +82,8 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
             // Load recipe details
             fetchRecipeDetails();
         });
+
+        findPantryRecipes();
     }
 
     private void initViews() {
@@ -98,6 +107,7 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
             recipeIds = intent.getStringArrayListExtra("recipe_ids");
             recipeTitles = intent.getStringArrayListExtra("recipe_titles");
             similarities = (ArrayList<Double>) intent.getSerializableExtra("similarities");
+            extractedIngredients = intent.getStringArrayListExtra("extracted_ingredients");
 
             // Log what we received
             Log.d(TAG, "Received token: " + (token != null));
@@ -188,6 +198,7 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
                 if (response.isSuccessful() && response.body() != null) {
                     // Update saved state in our map
                     savedRecipesMap.put(recipeId, true);
+                    FreshnessPolicy.signalChanged(FreshnessPolicy.Section.SAVED_RECIPES);
 
                     // Update adapter
                     adapter.notifyItemChanged(position);
@@ -233,6 +244,7 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
                 if (response.isSuccessful()) {
                     // Update saved state in our map
                     savedRecipesMap.put(recipeId, false);
+                    FreshnessPolicy.signalChanged(FreshnessPolicy.Section.SAVED_RECIPES);
 
                     // Update adapter
                     adapter.notifyItemChanged(position);
@@ -324,10 +336,13 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
         if (recipeIds == null || recipeIds.isEmpty()) {
             hideLoading();
             Toast.makeText(this, "No recipes found", Toast.LENGTH_SHORT).show();
+            recipeDetailsLoaded = true;
+            appendPantryRecipes();
             return;
         }
 
         showLoading();
+        recipeDetailsLoaded = false;
 
         // Clear existing recipes
         recipeList.clear();
@@ -355,30 +370,14 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
                             response.body().getData() != null &&
                             response.body().getData().getRecipe() != null) {
 
-                        // Convert RecipeDetail to Recipe for adapter
-                        ModelResponse.RecipeDetailResponse.Recipe detailRecipe =
-                                response.body().getData().getRecipe();
-
-                        // Create a RecipeResponse instance from ModelResponse to build the Recipe object
-                        ModelResponse.RecipeResponse recipeResponse = modelResponse.new RecipeResponse();
-
-                        // Create the Recipe instance from the RecipeResponse instance
-                        ModelResponse.RecipeResponse.Recipe recipe = recipeResponse.new Recipe();
-
-                        // Copy all necessary fields
-                        recipe.setId(detailRecipe.getId());
-                        recipe.setTitle(detailRecipe.getTitle());
-                        recipe.setAuthor(detailRecipe.getAuthor());
-                        recipe.setImageUrl(detailRecipe.getImageUrl());
-                        recipe.setIngredients(detailRecipe.getIngredients());
-                        recipe.setInstructions(detailRecipe.getInstructions());
-                        recipe.setTime(detailRecipe.getTime());
+                        // The adapter only needs the summary, which shares the detail's lists
+                        ModelResponse.RecipeResponse.Recipe recipe = response.body().getData().getRecipe().toSummary();
 
                         // Set initial rating from similarity score
                         if (index < similarities.size()) {
                             double similarityScore = similarities.get(index);
                             // Using similarity score as initial rating
-                            recipe.setAverageRating(similarityScore * 5);
+                            recipe = recipe.withAverageRating(similarityScore * 5);
                         }
 
                         // Add to our list
@@ -388,13 +387,15 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
                         runOnUiThread(() -> adapter.notifyDataSetChanged());
 
                         // Fetch real rating for this recipe
-                        fetchRatingForRecipe(apiService, recipe);
+                        fetchRatingForRecipe(recipe);
                     }
 
                     // Count loaded recipes
                     loadedCount[0]++;
                     if (loadedCount[0] >= totalRecipes) {
                         hideLoading();
+                        recipeDetailsLoaded = true;
+                        appendPantryRecipes();
 
                         if (recipeList.isEmpty()) {
                             Toast.makeText(ImageSearchResultsActivity.this,
@@ -412,6 +413,8 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
                     loadedCount[0]++;
                     if (loadedCount[0] >= totalRecipes) {
                         hideLoading();
+                        recipeDetailsLoaded = true;
+                        appendPantryRecipes();
 
                         if (recipeList.isEmpty()) {
                             Toast.makeText(ImageSearchResultsActivity.this,
@@ -424,45 +427,89 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
     }
 
     /**
-     * Fetches detailed rating for a single recipe
+     * Looks up cached recipes covering the ingredients the image search extracted
      */
-    private void fetchRatingForRecipe(ApiService apiService, ModelResponse.RecipeResponse.Recipe recipe) {
-        String recipeId = recipe.getId();
-        registerPendingLoad();
+    private void findPantryRecipes() {
+        if (extractedIngredients == null || extractedIngredients.isEmpty()) {
+            return;
+        }
 
-        Call<ModelResponse.getRatingResponse> call =
-                apiService.getRecipeRating(BEARER_PREFIX + token, recipeId);
+        List<String> pantry = new ArrayList<>(extractedIngredients);
+        pantryExecutor.execute(() -> {
+            List<RecipePantryIndex.Match> matches =
+                    RecipeCache.findRecipesForPantry(getApplicationContext(), pantry, MAX_PANTRY_RECIPES);
+            List<ModelResponse.RecipeResponse.Recipe> recipes = new ArrayList<>(matches.size());
+            for (RecipePantryIndex.Match match : matches) {
+                recipes.add(match.recipe);
+            }
+            Log.d(TAG, "Found " + recipes.size() + " cached recipes for " + pantry.size() + " ingredients");
 
-        call.enqueue(new Callback<ModelResponse.getRatingResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                   @NonNull Response<ModelResponse.getRatingResponse> response) {
-                if (response.isSuccessful() && response.body() != null &&
-                        response.body().getData() != null) {
+            runOnUiThread(() -> {
+                pantryRecipes = recipes;
+                appendPantryRecipes();
+            });
+        });
+    }
+
+    /**
+     * Adds the pantry matches below the search results once both are loaded
+     */
+    private void appendPantryRecipes() {
+        if (pantryRecipes == null || !recipeDetailsLoaded || isFinishing()) {
+            return;
+        }
 
-                    ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
+        boolean added = false;
+        for (ModelResponse.RecipeResponse.Recipe pantryRecipe : pantryRecipes) {
+            boolean listed = false;
+            for (ModelResponse.RecipeResponse.Recipe recipe : recipeList) {
+                if (recipe.getId() != null && recipe.getId().equals(pantryRecipe.getId())) {
+                    listed = true;
+                    break;
+                }
+            }
+            if (!listed) {
+                recipeList.add(pantryRecipe);
+                added = true;
+            }
+        }
 
-                    // Log the rating values for debugging
-                    Log.d(TAG, "Recipe ID: " + recipeId +
-                            " - Title: " + recipe.getTitle() +
-                            " - Average Rating: " + ratingData.getAverageRating() +
-                            " - Total Ratings: " + ratingData.getTotalRatings());
+        if (added && adapter != null) {
+            adapter.notifyDataSetChanged();
+        }
+    }
 
-                    // Update with actual rating from the API
-                    recipe.setAverageRating(ratingData.getAverageRating());
+    /**
+     * Fetches detailed rating for a single recipe
+     */
+    private void fetchRatingForRecipe(ModelResponse.RecipeResponse.Recipe recipe) {
+        registerPendingLoad();
 
-                    // Update UI
-                    runOnUiThread(() -> adapter.notifyDataSetChanged());
-                } else {
-                    Log.e(TAG, "Failed to get rating for recipe ID: " + recipeId);
+        RatingBatchLoader.getInstance().load(BEARER_PREFIX + token, recipe.getId(),
+                new RatingBatchLoader.RatingCallback() {
+            @Override
+            public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
+                // Log the rating values for debugging
+                Log.d(TAG, "Recipe ID: " + recipeId +
+                        " - Title: " + recipe.getTitle() +
+                        " - Average Rating: " + ratingData.getAverageRating() +
+                        " - Total Ratings: " + ratingData.getTotalRatings());
+
+                // Update with actual rating from the API
+                int position = RecipeLists.update(recipeList, recipeId,
+                        rated -> rated.withAverageRating(ratingData.getAverageRating()));
+
+                // Update UI
+                if (position >= 0) {
+                    adapter.notifyItemChanged(position);
                 }
 
                 completeLoad();
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "API Call Failed (Rating) - Recipe ID: " + recipeId + ", Error: " + t.getMessage());
+            public void onError(String recipeId, String errorMessage) {
+                Log.e(TAG, "API Call Failed (Rating) - Recipe ID: " + recipeId + ", Error: " + errorMessage);
                 completeLoad();
             }
         });
@@ -543,6 +590,12 @@ public class ImageSearchResultsActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        pantryExecutor.shutdownNow();
+    }
+
     /**
      * Save token to shared preferences for backup access
      */
@@ -32,11 +32,14 @@ import com.google.android.material.tabs.TabLayout;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import api.ApiService;
 import api.ModelResponse;
 import api.RetrofitClient;
+import api.UserRepository;
 import de.hdodenhof.circleimageview.CircleImageView;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -44,6 +47,7 @@ import retrofit2.Response;
 
 public class MainRecipe extends AppCompatActivity {
     private static final String TAG = "MainRecipe";
+    private static final int MAX_SIMILAR_RECIPES = 5;
 
     // Recipe data
     private String title;
@@ -59,6 +63,10 @@ public class MainRecipe extends AppCompatActivity {
     private String recipeId;
     private String recipeTime;
     private boolean isRecipeSaved = false; // Track if recipe is saved
+    // Cached recipes with similar ingredients, shown below the ingredients
+    private List<ModelResponse.RecipeResponse.Recipe> similarRecipes;
+    // Reads from the local recipe cache
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
 
     // Loading counter to track multiple API calls
     private AtomicInteger loadingCounter = new AtomicInteger(0);
@@ -108,6 +116,31 @@ public class MainRecipe extends AppCompatActivity {
 
         // Load recipe data
         getRecipe(token, recipeId);
+
+        // Recommend similar recipes from the local cache, no extra request needed
+        loadSimilarRecipes();
+    }
+
+    /**
+     * Looks up cached recipes with similar ingredients off the main thread
+     */
+    private void loadSimilarRecipes() {
+        cacheExecutor.execute(() -> {
+            List<ModelResponse.RecipeResponse.Recipe> recipes =
+                    RecipeCache.findSimilarRecipes(getApplicationContext(), recipeId, MAX_SIMILAR_RECIPES);
+            runOnUiThread(() -> {
+                similarRecipes = recipes;
+                if (ingredients != null && !isFinishing()) {
+                    updateIngredientsView();
+                }
+            });
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        cacheExecutor.shutdownNow();
     }
 
     /**
@@ -297,59 +330,47 @@ public class MainRecipe extends AppCompatActivity {
 
         Log.d(TAG, "Fetching author details for ID: " + authorId);
 
-        ApiService apiService = RetrofitClient.getApiService();
-        apiService.getUserById("Bearer " + token, authorId).enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, authorId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(Call<ModelResponse.UserResponse> call, Response<ModelResponse.UserResponse> response) {
+            public void onSuccess(ModelResponse.UserResponse.User user) {
                 if (imgProfile != null) {
                     imgProfile.setAlpha(1.0f);
                 }
 
-                if (response.isSuccessful() && response.body() != null &&
-                        response.body().getData() != null &&
-                        response.body().getData().getUser() != null) {
-
-                    // Get user data
-                    ModelResponse.UserResponse.User user = response.body().getData().getUser();
-                    String userName = user.getName();
-                    String userAvatar = user.getUrlAvatar();
-
-                    // Update UI with author information
-                    tvUserName.setText(userName != null && !userName.isEmpty() ? userName : authorId);
-
-                    // Load the avatar with Glide
-                    if (userAvatar != null && !userAvatar.isEmpty()) {
-                        Glide.with(MainRecipe.this)
-                                .load(userAvatar)
-                                .apply(new RequestOptions()
-                                        .placeholder(R.drawable.ic_profile)
-                                        .error(R.drawable.ic_profile))
-                                .into(imgProfile);
-                    } else {
-                        imgProfile.setImageResource(R.drawable.ic_profile);
-                    }
-
-                    // Update user location if country is available
-                    String userCountry = user.getCountry();
-                    if (userCountry != null && !userCountry.isEmpty()) {
-                        tvUserLocation.setText(userCountry);
-                    }
+                // Get user data
+                String userName = user.getName();
+                String userAvatar = user.getUrlAvatar();
+
+                // Update UI with author information
+                tvUserName.setText(userName != null && !userName.isEmpty() ? userName : authorId);
+
+                // Load the avatar with Glide
+                if (userAvatar != null && !userAvatar.isEmpty()) {
+                    Glide.with(MainRecipe.this)
+                            .load(userAvatar)
+                            .apply(new RequestOptions()
+                                    .placeholder(R.drawable.ic_profile)
+                                    .error(R.drawable.ic_profile))
+                            .into(imgProfile);
                 } else {
-                    // Default for failed requests
                     imgProfile.setImageResource(R.drawable.ic_profile);
-                    Log.e(TAG, "Failed to get author details: " +
-                            (response.code() + " - " + (response.errorBody() != null ?
-                                    "Error body available" : "No error body")));
+                }
+
+                // Update user location if country is available
+                String userCountry = user.getCountry();
+                if (userCountry != null && !userCountry.isEmpty()) {
+                    tvUserLocation.setText(userCountry);
                 }
             }
 
             @Override
-            public void onFailure(Call<ModelResponse.UserResponse> call, Throwable t) {
+            public void onError(String errorMessage) {
                 if (imgProfile != null) {
                     imgProfile.setAlpha(1.0f);
                 }
+                // Default for failed requests
                 imgProfile.setImageResource(R.drawable.ic_profile);
-                Log.e(TAG, "Network error fetching author details: " + t.getMessage());
+                Log.e(TAG, "Failed to get author details: " + errorMessage);
             }
         });
     }
@@ -448,12 +469,48 @@ public class MainRecipe extends AppCompatActivity {
                 // Decrement loading counter and check if we should hide loading overlay
                 checkAndUpdateLoadingState();
 
-                showError("Network error: " + t.getMessage());
                 Log.e(TAG, "API call failed", t);
+                showCachedRecipe("Network error: " + t.getMessage());
             }
         });
     }
 
+    /**
+     * Shows the cached copy of the recipe when it cannot be loaded from the server
+     * @param errorMessage Shown instead if the recipe is not cached
+     */
+    private void showCachedRecipe(String errorMessage) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        cacheExecutor.execute(() -> {
+            ModelResponse.RecipeResponse.Recipe recipe = RecipeCache.getCachedRecipe(getApplicationContext(), recipeId);
+            runOnUiThread(() -> {
+                if (isFinishing()) {
+                    return;
+                }
+                if (recipe == null) {
+                    showError(errorMessage);
+                    return;
+                }
+
+                title = recipe.getTitle();
+                author = recipe.getAuthor();
+                image_url = recipe.getImageUrl();
+                ingredients = recipe.getIngredients();
+                instructions = recipe.getInstructions();
+                recipeTime = recipe.getTime();
+                averageRating = recipe.getAverageRating();
+                reviewCount = recipe.getRating() != null ? recipe.getRating().size() : 0;
+
+                updateUI();
+                updateRatingUI();
+                showError("Offline, showing the saved copy of this recipe");
+            });
+        });
+    }
+
     /**
      * Fetch rating information for the recipe using the new rating API
      * @param token Authentication token
@@ -642,6 +699,57 @@ public class MainRecipe extends AppCompatActivity {
             cardView.addView(layout);
             container.addView(cardView);
         }
+
+        addSimilarRecipesView(container);
+    }
+
+    /**
+     * Appends the similar recipes below the ingredients, each opening its own detail screen
+     */
+    private void addSimilarRecipesView(LinearLayout container) {
+        if (similarRecipes == null || similarRecipes.isEmpty()) {
+            return;
+        }
+
+        TextView header = new TextView(this);
+        LinearLayout.LayoutParams headerParams = new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.WRAP_CONTENT,
+                LinearLayout.LayoutParams.WRAP_CONTENT);
+        headerParams.setMargins(0, dpToPx(8), 0, dpToPx(8));
+        header.setLayoutParams(headerParams);
+        header.setText("More like this");
+        header.setTextColor(ContextCompat.getColor(this, android.R.color.black));
+        header.setTextSize(16);
+        header.setTypeface(null, android.graphics.Typeface.BOLD);
+        container.addView(header);
+
+        for (ModelResponse.RecipeResponse.Recipe recipe : similarRecipes) {
+            CardView cardView = new CardView(this);
+            LinearLayout.LayoutParams cardParams = new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT);
+            cardParams.setMargins(0, 0, 0, dpToPx(12));
+            cardView.setLayoutParams(cardParams);
+            cardView.setRadius(dpToPx(12));
+            cardView.setCardElevation(0);
+
+            TextView tvTitle = new TextView(this);
+            tvTitle.setLayoutParams(new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT,
+                    LinearLayout.LayoutParams.WRAP_CONTENT));
+            tvTitle.setText(recipe.getTitle());
+            tvTitle.setTextColor(ContextCompat.getColor(this, android.R.color.black));
+            tvTitle.setPadding(dpToPx(16), dpToPx(16), dpToPx(16), dpToPx(16));
+
+            cardView.addView(tvTitle);
+            cardView.setOnClickListener(v -> {
+                Intent intent = new Intent(this, MainRecipe.class);
+                intent.putExtra("recipe_id", recipe.getId());
+                intent.putExtra("token", token);
+                startActivity(intent);
+            });
+            container.addView(cardView);
+        }
     }
 
     /**
@@ -843,6 +951,8 @@ public class MainRecipe extends AppCompatActivity {
 
                         if (response.isSuccessful() && response.body() != null) {
                             if ("success".equals(response.body().getStatus())) {
+                                FreshnessPolicy.signalChanged(FreshnessPolicy.Section.COMMON_RECIPES,
+                                        FreshnessPolicy.Section.NEW_RECIPES, FreshnessPolicy.Section.ALL_RECIPES);
                                 Toast.makeText(MainRecipe.this,
                                         "Recipe deleted successfully", Toast.LENGTH_SHORT).show();
 
@@ -891,6 +1001,7 @@ public class MainRecipe extends AppCompatActivity {
 
                     if (response.isSuccessful()) {
                         isRecipeSaved = false;
+                        FreshnessPolicy.signalChanged(FreshnessPolicy.Section.SAVED_RECIPES);
                         Toast.makeText(MainRecipe.this, "Recipe removed from saved collection",
                                 Toast.LENGTH_SHORT).show();
                     } else {
@@ -921,6 +1032,7 @@ public class MainRecipe extends AppCompatActivity {
 
                     if (response.isSuccessful() && response.body() != null) {
                         isRecipeSaved = true;
+                        FreshnessPolicy.signalChanged(FreshnessPolicy.Section.SAVED_RECIPES);
                         Toast.makeText(MainRecipe.this, "Recipe saved successfully",
                                 Toast.LENGTH_SHORT).show();
                     } else {
@@ -1041,6 +1153,7 @@ public class MainRecipe extends AppCompatActivity {
             public void onResponse(Call<ModelResponse.RatingResponse> call, Response<ModelResponse.RatingResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     // Rating submitted successfully
+                    FreshnessPolicy.signalChanged(FreshnessPolicy.Section.RATINGS);
                     Toast.makeText(MainRecipe.this, "Rating submitted successfully", Toast.LENGTH_SHORT).show();
 
                     // Update the UI with the new rating if available
@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import adapter.OtherProfilePagerAdapter;
 import api.ApiService;
 import api.RetrofitClient;
+import api.UserRepository;
 import api.ModelResponse;
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -175,45 +176,37 @@ public class OtherProfileActivity extends AppCompatActivity {
         registerPendingLoad();
         Log.d(TAG, "Fetching user profile");
 
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, currentUserId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, currentUserId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String userName = response.body().getData().getUser().getName();
-                    tvProfileName.setText(userName);
-
-                    String country = response.body().getData().getUser().getCountry();
-                    String countryCode = (country != null && !country.isEmpty()) ? country.substring(0, Math.min(3, country.length())).toUpperCase() : "NT118";
-                    tvCountry.setText(countryCode);
-
-                    // Load profile image if available
-                    String avatarUrl = response.body().getData().getUser().getUrlAvatar();
-                    if (avatarUrl != null && !avatarUrl.isEmpty()) {
-                        // Load image using Glide
-                        Glide.with(OtherProfileActivity.this)
-                                .load(avatarUrl)
-                                .apply(new RequestOptions()
-                                        .placeholder(R.drawable.ic_profile)
-                                        .error(R.drawable.ic_profile)
-                                        .circleCrop())
-                                .into(ivProfileImage);
-                    }
-
-                    Log.d(TAG, "User profile fetched successfully: " + userName);
-                } else {
-                    Log.e(TAG, "Failed to fetch user profile: " + response.code());
-                    Toast.makeText(OtherProfileActivity.this, "Failed to load user profile", Toast.LENGTH_SHORT).show();
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                String userName = user.getName();
+                tvProfileName.setText(userName);
+
+                String country = user.getCountry();
+                String countryCode = (country != null && !country.isEmpty()) ? country.substring(0, Math.min(3, country.length())).toUpperCase() : "NT118";
+                tvCountry.setText(countryCode);
+
+                // Load profile image if available
+                String avatarUrl = user.getUrlAvatar();
+                if (avatarUrl != null && !avatarUrl.isEmpty()) {
+                    // Load image using Glide
+                    Glide.with(OtherProfileActivity.this)
+                            .load(avatarUrl)
+                            .apply(new RequestOptions()
+                                    .placeholder(R.drawable.ic_profile)
+                                    .error(R.drawable.ic_profile)
+                                    .circleCrop())
+                            .into(ivProfileImage);
                 }
+
+                Log.d(TAG, "User profile fetched successfully: " + userName);
                 completeLoad();
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "Error fetching user profile: " + t.getMessage());
-                Toast.makeText(OtherProfileActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Failed to fetch user profile: " + errorMessage);
+                Toast.makeText(OtherProfileActivity.this, "Failed to load user profile", Toast.LENGTH_SHORT).show();
                 completeLoad();
             }
         });
@@ -277,34 +270,26 @@ public class OtherProfileActivity extends AppCompatActivity {
         registerPendingLoad();
         Log.d(TAG, "Fetching saved recipes count");
 
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, currentUserId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, currentUserId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    savedRecipeIds = response.body().getData().getUser().getSavedRecipes();
-                    if (savedRecipeIds == null) {
-                        savedRecipeIds = new ArrayList<>();
-                    }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                savedRecipeIds = user.getSavedRecipes();
+                if (savedRecipeIds == null) {
+                    savedRecipeIds = new ArrayList<>();
+                }
 
-                    Log.d(TAG, "Saved recipes count: " + savedRecipeIds.size());
-                    tvNumberSavedRecipes.setText(String.valueOf(savedRecipeIds.size()));
+                Log.d(TAG, "Saved recipes count: " + savedRecipeIds.size());
+                tvNumberSavedRecipes.setText(String.valueOf(savedRecipeIds.size()));
 
-                    isSavedRecipesFetched = true;
-                    checkAndSetupViewPager();
-                } else {
-                    Log.e(TAG, "Failed to fetch saved recipes: " + response.code());
-                    Toast.makeText(OtherProfileActivity.this, "Không thể tải số lượng công thức đã lưu.", Toast.LENGTH_SHORT).show();
-                }
+                isSavedRecipesFetched = true;
+                checkAndSetupViewPager();
                 completeLoad();
             }
 
             @Override
-            public void onFailure(@NonNull Call<ModelResponse.UserResponse> call, @NonNull Throwable t) {
-                Log.e(TAG, "Error fetching saved recipes: " + t.getMessage());
-                Toast.makeText(OtherProfileActivity.this, "Lỗi: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Failed to fetch saved recipes: " + errorMessage);
+                Toast.makeText(OtherProfileActivity.this, "Không thể tải số lượng công thức đã lưu.", Toast.LENGTH_SHORT).show();
                 completeLoad();
             }
         });
@@ -2,127 +2,412 @@ package com.example.appfood;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.database.SQLException;
 import android.util.Log;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
+import api.ApiGson;
 import api.ModelResponse.RecipeResponse.Recipe;
 
 public class RecipeCache {
     private static final String TAG = "RecipeCache";
     private static final String PREF_NAME = "recipe_cache_pref";
     private static final String CACHE_TIMESTAMP_KEY = "recipe_cache_timestamp";
-    private static final String RECIPE_CACHE_FILENAME = "recipe_cache.json";
+    private static final String SYNC_WATERMARK_KEY = "recipe_sync_watermark";
+    // Recipes used to be stored as one JSON file, it is imported into the database once
+    private static final String LEGACY_CACHE_FILENAME = "recipe_cache.json";
     private static final int CACHE_EXPIRY_HOURS = 24; // Cache expires after 24 hours
 
-    public static void saveRecipesToCache(Context context, List<Recipe> recipes) {
-        if (recipes == null || recipes.isEmpty()) {
-            Log.d(TAG, "No recipes to cache");
-            return;
-        }
+    private static final RecipeMemoryCache memoryCache = new RecipeMemoryCache();
+    private static boolean legacyCacheChecked = false;
+    private static boolean memoryCallbacksRegistered = false;
+
+    // Mirrors of the store's timestamp and row count, -1 until read once
+    private static volatile long cacheTimestamp = -1;
+    private static volatile long cachedRecipeCount = -1;
+
+    // Built from the index terms on the first misspelled search, dropped on every write
+    private static volatile RecipeFuzzyIndex fuzzyIndex;
+    // Built from the cached catalog on the first pantry search, dropped on every write
+    private static volatile RecipePantryIndex pantryIndex;
+    // Loaded from the stored signatures on first use, then kept up to date by syncs
+    private static volatile RecipeSimilarityIndex similarityIndex;
+    // Incremented on every write to the store, so holders of earlier results can tell they are outdated
+    private static final AtomicLong catalogVersion = new AtomicLong();
 
+    public static List<Recipe> getRecipesFromCache(Context context) {
         try {
-            // Save recipes to a file
-            Gson gson = new Gson();
-            String jsonRecipes = gson.toJson(recipes);
+            // Check if cache is expired
+            if (isCacheExpired(getCacheTimestamp(context))) {
+                Log.d(TAG, "Cache expired");
+                return null;
+            }
 
-            File cacheFile = new File(context.getFilesDir(), RECIPE_CACHE_FILENAME);
-            FileOutputStream outputStream = new FileOutputStream(cacheFile);
-            outputStream.write(jsonRecipes.getBytes());
-            outputStream.close();
+            List<Recipe> recipes = memoryCache.getAll();
+            if (recipes == null) {
+                recipes = getDatabase(context).getAll();
+                memoryCache.putAll(recipes);
+                Log.d(TAG, "Retrieved " + recipes.size() + " recipes from cache");
+                logStringPool(getDatabase(context).getStringPool());
+            }
+            return recipes.isEmpty() ? null : new ArrayList<>(recipes);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading recipes from cache: " + e.getMessage());
+            return null;
+        }
+    }
 
-            // Save timestamp to preferences
-            SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            preferences.edit()
-                    .putLong(CACHE_TIMESTAMP_KEY, System.currentTimeMillis())
-                    .apply();
+    /**
+     * Starts writing a sync that is parsed one recipe at a time. The session must be
+     * closed, and only a committed session counts as a completed sync
+     */
+    static SyncSession beginSync(Context context) {
+        return new SyncSession(context, getDatabase(context).beginSync());
+    }
 
-            Log.d(TAG, "Cached " + recipes.size() + " recipes successfully");
-        } catch (IOException e) {
-            Log.e(TAG, "Error saving recipes to cache: " + e.getMessage());
+    /**
+     * A streamed sync in progress, keeping the memory tier and the derived indexes in line
+     * with what is written
+     */
+    static class SyncSession implements RecipeDeltaReader.Sink, Closeable {
+        private final Context context;
+        private final RecipeDatabase.SyncWriter writer;
+        private final RecipeSimilarityIndex similarity = similarityIndex;
+        private boolean committed = false;
+
+        private SyncSession(Context context, RecipeDatabase.SyncWriter writer) {
+            this.context = context;
+            this.writer = writer;
+        }
+
+        @Override
+        public void putRecipe(Recipe recipe) {
+            writer.put(recipe);
+            if (similarity != null && recipe.getId() != null) {
+                similarity.put(recipe.getId(), RecipeSimilarityIndex.computeSignature(recipe.getIngredients()));
+            }
+        }
+
+        @Override
+        public void deleteRecipe(String recipeId) {
+            writer.delete(recipeId);
+            if (similarity != null) {
+                similarity.remove(recipeId);
+            }
+        }
+
+        /**
+         * @param fullSnapshot True if the sync contained every recipe, not only changes
+         * @return Number of recipes in the cache after the sync
+         */
+        int commit(boolean fullSnapshot) {
+            cachedRecipeCount = writer.commit(fullSnapshot);
+            committed = true;
+            if (fullSnapshot || similarityIndex != similarity) {
+                // Recipes missing from the snapshot were removed without passing through here,
+                // and an index loaded during the sync missed part of it
+                similarityIndex = null;
+            }
+            releaseDerivedData();
+            touchCache(context);
+            return (int) cachedRecipeCount;
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+            if (!committed) {
+                // Chunks written before the failure are already in the store
+                cachedRecipeCount = -1;
+                similarityIndex = null;
+                releaseDerivedData();
+            }
         }
     }
 
-    public static List<Recipe> getRecipesFromCache(Context context) {
+    private static void logStringPool(RecipeStringPool stringPool) {
+        long seenBytes = stringPool.getSeenBytes();
+        Log.d(TAG, "Pooled recipe strings of this load: ~" + seenBytes / 1024 + " KB as read, ~" +
+                (seenBytes - stringPool.getSavedBytes()) / 1024 + " KB after deduplication, " +
+                stringPool.size() + " distinct strings");
+    }
+
+    private static void releaseDerivedData() {
+        catalogVersion.incrementAndGet();
+        fuzzyIndex = null;
+        pantryIndex = null;
+        memoryCache.evictAll();
+    }
+
+    /**
+     * Changes whenever synced recipes are written, equal values mean nothing was written in between
+     */
+    static long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Marks the cached recipes as current without rewriting them
+     */
+    public static void touchCache(Context context) {
+        cacheTimestamp = System.currentTimeMillis();
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        preferences.edit()
+                .putLong(CACHE_TIMESTAMP_KEY, cacheTimestamp)
+                .apply();
+    }
+
+    /**
+     * Server time of the last successful sync, 0 if the next sync has to fetch everything
+     */
+    public static long getSyncWatermark(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        return preferences.getLong(SYNC_WATERMARK_KEY, 0);
+    }
+
+    public static void setSyncWatermark(Context context, long watermark) {
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        preferences.edit().putLong(SYNC_WATERMARK_KEY, watermark).commit();
+    }
+
+    /**
+     * Checks if there are cached recipes to merge a delta into, regardless of their age
+     */
+    public static boolean hasCachedRecipes(Context context) {
+        if (cachedRecipeCount >= 0) {
+            return cachedRecipeCount > 0;
+        }
+
         try {
-            // Check if cache is valid
-            SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            long timestamp = preferences.getLong(CACHE_TIMESTAMP_KEY, 0);
+            cachedRecipeCount = getDatabase(context).count();
+            return cachedRecipeCount > 0;
+        } catch (SQLException e) {
+            Log.e(TAG, "Error checking recipe cache: " + e.getMessage());
+            return false;
+        }
+    }
 
-            // Check if cache is expired
-            if (isCacheExpired(timestamp)) {
-                Log.d(TAG, "Cache expired");
-                return null;
+    /**
+     * Searches cached recipe titles and ingredients for a query already folded by
+     * RecipeTextNormalizer, every query word matches as a prefix and the best matches
+     * come first. Keeps the indexed terms of each result so callers can narrow the
+     * results for a longer query themselves.
+     * When nothing matches exactly, misspelled words are replaced by close index terms
+     */
+    static List<RecipeSearchIndex.Hit> searchRecipeHits(Context context, String normalizedQuery) {
+        if (normalizedQuery == null || normalizedQuery.isEmpty() || !isCacheAvailable(context)) {
+            return new ArrayList<>();
+        }
+
+        try {
+            RecipeDatabase database = getDatabase(context);
+            List<RecipeSearchIndex.Hit> hits = database.search(normalizedQuery);
+            return hits.isEmpty() ? fuzzySearch(database, normalizedQuery) : hits;
+        } catch (SQLException e) {
+            Log.e(TAG, "Error searching recipe cache: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Searches again with every query word that matches nothing replaced by the index
+     * terms within a small edit distance, ranking results lower the more they had to be corrected
+     */
+    private static List<RecipeSearchIndex.Hit> fuzzySearch(RecipeDatabase database, String normalizedQuery) {
+        RecipeFuzzyIndex index = fuzzyIndex;
+        if (index == null) {
+            index = new RecipeFuzzyIndex(database.loadSearchTerms());
+            fuzzyIndex = index;
+        }
+
+        List<String> exactTerms = new ArrayList<>();
+        List<List<RecipeFuzzyIndex.Candidate>> corrections = new ArrayList<>();
+        StringBuilder matchQuery = new StringBuilder();
+        for (String term : RecipeTextNormalizer.splitTerms(normalizedQuery)) {
+            if (matchQuery.length() > 0) {
+                matchQuery.append(' ');
             }
 
-            // Read recipes from file
-            File cacheFile = new File(context.getFilesDir(), RECIPE_CACHE_FILENAME);
-            if (!cacheFile.exists()) {
-                return null;
+            if (index.hasPrefix(term)) {
+                exactTerms.add(term);
+                matchQuery.append(term).append('*');
+                continue;
             }
 
-            FileReader reader = new FileReader(cacheFile);
-            Gson gson = new Gson();
-            Type recipeListType = new TypeToken<ArrayList<Recipe>>(){}.getType();
-            List<Recipe> recipes = gson.fromJson(reader, recipeListType);
-            reader.close();
+            List<RecipeFuzzyIndex.Candidate> candidates = index.findCandidates(term);
+            if (candidates.isEmpty()) {
+                return new ArrayList<>();
+            }
+            corrections.add(candidates);
 
-            Log.d(TAG, "Retrieved " + (recipes != null ? recipes.size() : 0) + " recipes from cache");
-            return recipes;
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading recipes from cache: " + e.getMessage());
+            // No parentheses, the standard FTS query syntax has none and binds OR tightest anyway
+            for (int i = 0; i < candidates.size(); i++) {
+                matchQuery.append(i > 0 ? " OR " : "").append(candidates.get(i).term);
+            }
+        }
+
+        if (corrections.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // With the enhanced query syntax the same query matches a superset, so check every hit here
+        List<RecipeSearchIndex.Hit> hits = new ArrayList<>();
+        for (RecipeSearchIndex.Hit hit : database.searchMatch(matchQuery.toString())) {
+            if (!hit.matches(exactTerms)) {
+                continue;
+            }
+
+            int totalDistance = 0;
+            for (List<RecipeFuzzyIndex.Candidate> candidates : corrections) {
+                // Candidates are sorted by distance, the first one the recipe contains is the closest
+                int distance = -1;
+                for (RecipeFuzzyIndex.Candidate candidate : candidates) {
+                    if (hit.containsTerm(candidate.term)) {
+                        distance = candidate.distance;
+                        break;
+                    }
+                }
+                if (distance < 0) {
+                    totalDistance = -1;
+                    break;
+                }
+                totalDistance += distance;
+            }
+
+            if (totalDistance >= 0) {
+                hit.score /= 1 + totalDistance;
+                hits.add(hit);
+            }
+        }
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        Log.d(TAG, "Fuzzy search for '" + normalizedQuery + "' found " + hits.size() + " recipes");
+        return hits;
+    }
+
+    /**
+     * A cached recipe with its ingredients, instructions and ratings, null if it is not
+     * cached. Only this recipe's details are read, so it is cheap enough for opening a
+     * recipe, but still call it off the main thread. Expired entries are returned too,
+     * callers use it when the server cannot be reached
+     */
+    public static Recipe getCachedRecipe(Context context, String recipeId) {
+        if (recipeId == null || !hasCachedRecipes(context)) {
+            return null;
+        }
+
+        try {
+            return getDatabase(context).getRecipe(recipeId);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error reading recipe from cache: " + e.getMessage());
             return null;
         }
     }
 
-    public static List<Recipe> searchRecipesByTitle(Context context, String query) {
-        List<Recipe> allRecipes = getRecipesFromCache(context);
-        if (allRecipes == null || allRecipes.isEmpty() || query == null || query.trim().isEmpty()) {
-            return new ArrayList<>();
+    /**
+     * Summaries of cached recipes passing a filter, null if the cache is not available.
+     * Results are kept in the memory tier until the next sync, so screens showing the
+     * same list again do not query the store
+     */
+    public static List<Recipe> filterRecipes(Context context, RecipeFilter filter, int limit) {
+        if (!isCacheAvailable(context)) {
+            return null;
         }
 
-        String normalizedQuery = query.toLowerCase(Locale.getDefault()).trim();
+        try {
+            String key = filter.getCacheKey() + "|" + limit;
+            List<Recipe> recipes = memoryCache.getFilterResults(key);
+            if (recipes == null) {
+                recipes = getDatabase(context).filter(filter, limit);
+                memoryCache.putFilterResults(key, recipes);
+            }
+            return new ArrayList<>(recipes);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error filtering recipe cache: " + e.getMessage());
+            return null;
+        }
+    }
 
-        // Filter recipes that contain the query in their title
-        return allRecipes.stream()
-                .filter(recipe -> recipe.getTitle() != null &&
-                        recipe.getTitle().toLowerCase(Locale.getDefault()).contains(normalizedQuery))
-                .collect(Collectors.toList());
+    /**
+     * Cached recipes that can be cooked with the given ingredients, fewest missing
+     * ingredients first. Reads the whole catalog on first use, so call it off the main thread
+     */
+    static List<RecipePantryIndex.Match> findRecipesForPantry(Context context, Collection<String> pantry, int limit) {
+        RecipePantryIndex index = pantryIndex;
+        if (index == null) {
+            List<Recipe> recipes = getRecipesFromCache(context);
+            if (recipes == null) {
+                return new ArrayList<>();
+            }
+            index = new RecipePantryIndex(recipes);
+            pantryIndex = index;
+        }
+        return index.match(pantry, limit);
     }
 
-    public static boolean isCacheAvailable(Context context) {
-        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        long timestamp = preferences.getLong(CACHE_TIMESTAMP_KEY, 0);
+    /**
+     * Summaries of cached recipes whose ingredients resemble those of the given recipe,
+     * most similar first. Loads the signatures on first use, so call it off the main thread
+     */
+    public static List<Recipe> findSimilarRecipes(Context context, String recipeId, int limit) {
+        if (recipeId == null || !isCacheAvailable(context)) {
+            return new ArrayList<>();
+        }
 
-        if (isCacheExpired(timestamp)) {
-            return false;
+        try {
+            RecipeDatabase database = getDatabase(context);
+            RecipeSimilarityIndex index = similarityIndex;
+            if (index == null) {
+                index = database.loadSimilarityIndex();
+                similarityIndex = index;
+            }
+            return database.getSummaries(index.findSimilar(recipeId, limit));
+        } catch (SQLException e) {
+            Log.e(TAG, "Error finding similar recipes: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Counts cached recipes uploaded by a user, -1 if the cache is not available
+     */
+    public static int countRecipesByAuthor(Context context, String authorId) {
+        if (authorId == null || !isCacheAvailable(context)) {
+            return -1;
         }
 
-        File cacheFile = new File(context.getFilesDir(), RECIPE_CACHE_FILENAME);
-        return cacheFile.exists();
+        try {
+            return (int) getDatabase(context).countByAuthor(authorId);
+        } catch (SQLException e) {
+            Log.e(TAG, "Error counting recipes by author: " + e.getMessage());
+            return -1;
+        }
     }
 
-    public static void clearCache(Context context) {
-        File cacheFile = new File(context.getFilesDir(), RECIPE_CACHE_FILENAME);
-        if (cacheFile.exists()) {
-            cacheFile.delete();
+    public static boolean isCacheAvailable(Context context) {
+        if (isCacheExpired(getCacheTimestamp(context))) {
+            return false;
         }
 
-        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        preferences.edit().remove(CACHE_TIMESTAMP_KEY).apply();
+        return hasCachedRecipes(context);
+    }
 
-        Log.d(TAG, "Recipe cache cleared");
+    private static long getCacheTimestamp(Context context) {
+        if (cacheTimestamp < 0) {
+            SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+            cacheTimestamp = preferences.getLong(CACHE_TIMESTAMP_KEY, 0);
+        }
+        return cacheTimestamp;
     }
 
     private static boolean isCacheExpired(long timestamp) {
@@ -135,4 +420,42 @@ public class RecipeCache {
 
         return currentTime - timestamp > expiryTimeMs;
     }
-}
\ No newline at end of file
+
+    private static synchronized RecipeDatabase getDatabase(Context context) {
+        RecipeDatabase database = RecipeDatabase.getInstance(context);
+        if (!memoryCallbacksRegistered) {
+            memoryCallbacksRegistered = true;
+            // Lets the memory tier give its memory back on onTrimMemory
+            context.getApplicationContext().registerComponentCallbacks(memoryCache);
+        }
+        if (!legacyCacheChecked) {
+            legacyCacheChecked = true;
+            importLegacyCache(context, database);
+        }
+        return database;
+    }
+
+    /**
+     * Moves recipes from the old JSON file into the database so an update does not
+     * lose the cache or its sync watermark
+     */
+    private static void importLegacyCache(Context context, RecipeDatabase database) {
+        File legacyFile = new File(context.getFilesDir(), LEGACY_CACHE_FILENAME);
+        if (!legacyFile.exists()) {
+            return;
+        }
+
+        try (FileReader reader = new FileReader(legacyFile)) {
+            Type recipeListType = new TypeToken<ArrayList<Recipe>>(){}.getType();
+            List<Recipe> recipes = ApiGson.get().fromJson(reader, recipeListType);
+            if (recipes != null && !recipes.isEmpty()) {
+                database.replaceAll(recipes);
+                Log.d(TAG, "Imported " + recipes.size() + " recipes from the old cache file");
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error importing old recipe cache: " + e.getMessage());
+        }
+
+        legacyFile.delete();
+    }
+}
@@ -0,0 +1,589 @@
+package com.example.appfood;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.Closeable;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import api.ApiGson;
+import api.ModelResponse;
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * SQLite store behind RecipeCache. One row per recipe with indexed id, title and author
+ * columns, so lookups and searches do not have to parse the whole catalog.
+ *
+ * Ingredients, instructions, ratings and the similarity signature live in a separate
+ * details table keyed by the recipe's rowid. The recipes table only holds what a recipe card
+ * shows plus the filter columns, so list screens and searches scan compact rows and the
+ * details are read when a single recipe is opened or the whole catalog is needed.
+ */
+class RecipeDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "recipe_cache.db";
+    private static final int DATABASE_VERSION = 8;
+
+    private static final String TABLE_RECIPES = "recipes";
+    private static final String COL_ID = "id";
+    private static final String COL_TITLE = "title";
+    // Title folded by RecipeTextNormalizer
+    private static final String COL_TITLE_NORMALIZED = "title_normalized";
+    private static final String COL_AUTHOR = "author";
+    private static final String COL_IMAGE_URL = "image_url";
+    private static final String COL_TIME = "time";
+    private static final String COL_AVERAGE_RATING = "average_rating";
+    // Parsed from time and ingredients by RecipeFacets when written, NULL if the time is unknown
+    private static final String COL_MINUTES = "minutes";
+    private static final String COL_INGREDIENT_COUNT = "ingredient_count";
+    // Keeps the order recipes came from the server in
+    private static final String COL_POSITION = "position";
+
+    private static final String TABLE_DETAILS = "recipe_details";
+    // Rowid of the recipe in TABLE_RECIPES
+    private static final String COL_RECIPE_ROW = "recipe_row";
+    private static final String COL_INGREDIENTS = "ingredients";
+    private static final String COL_INSTRUCTIONS = "instructions";
+    private static final String COL_RATINGS = "ratings";
+    // MinHash signature of the ingredient names, see RecipeSimilarityIndex
+    private static final String COL_INGREDIENT_SIGNATURE = "ingredient_signature";
+
+    // Rows written by the sync in progress, per connection and never persisted
+    private static final String TABLE_SYNC_SEEN = "sync_seen";
+    private static final String COL_ROW_ID = "row_id";
+    private static final String COL_STREAM_INDEX = "stream_index";
+
+    private static final String[] SUMMARY_COLUMNS = {
+            COL_ID, COL_TITLE, COL_AUTHOR, COL_IMAGE_URL, COL_TIME, COL_AVERAGE_RATING
+    };
+    // Summary columns of TABLE_RECIPES followed by the details, for queries joining both tables
+    private static final String FULL_SELECT = "SELECT r." + COL_ID + ", r." + COL_TITLE + ", r." + COL_AUTHOR +
+            ", r." + COL_IMAGE_URL + ", r." + COL_TIME + ", r." + COL_AVERAGE_RATING +
+            ", d." + COL_INGREDIENTS + ", d." + COL_INSTRUCTIONS + ", d." + COL_RATINGS +
+            " FROM " + TABLE_RECIPES + " r LEFT JOIN " + TABLE_DETAILS + " d ON d." + COL_RECIPE_ROW + " = r.rowid";
+
+    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>(){}.getType();
+    private static final Type RATING_LIST_TYPE =
+            new TypeToken<List<ModelResponse.RecipeDetailResponse.Rating>>(){}.getType();
+
+    private static RecipeDatabase instance;
+
+    private final Gson gson = ApiGson.get();
+    private final RecipeStringPool stringPool = new RecipeStringPool();
+
+    static synchronized RecipeDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new RecipeDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private RecipeDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Lets searches and list screens read on their own connections while a sync writes
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_RECIPES + " (" +
+                COL_ID + " TEXT PRIMARY KEY, " +
+                COL_TITLE + " TEXT, " +
+                COL_TITLE_NORMALIZED + " TEXT, " +
+                COL_AUTHOR + " TEXT, " +
+                COL_IMAGE_URL + " TEXT, " +
+                COL_TIME + " TEXT, " +
+                COL_AVERAGE_RATING + " REAL, " +
+                COL_MINUTES + " INTEGER, " +
+                COL_INGREDIENT_COUNT + " INTEGER, " +
+                COL_POSITION + " INTEGER)");
+        db.execSQL("CREATE TABLE " + TABLE_DETAILS + " (" +
+                COL_RECIPE_ROW + " INTEGER PRIMARY KEY, " +
+                COL_INGREDIENTS + " TEXT, " +
+                COL_INSTRUCTIONS + " TEXT, " +
+                COL_RATINGS + " TEXT, " +
+                COL_INGREDIENT_SIGNATURE + " BLOB)");
+        db.execSQL("CREATE INDEX idx_recipes_title ON " + TABLE_RECIPES + " (" + COL_TITLE_NORMALIZED + ")");
+        db.execSQL("CREATE INDEX idx_recipes_author ON " + TABLE_RECIPES + " (" + COL_AUTHOR + ")");
+        db.execSQL("CREATE INDEX idx_recipes_minutes ON " + TABLE_RECIPES + " (" + COL_MINUTES + ")");
+        db.execSQL("CREATE INDEX idx_recipes_rating ON " + TABLE_RECIPES + " (" + COL_AVERAGE_RATING + ")");
+        db.execSQL("CREATE INDEX idx_recipes_ingredient_count ON " + TABLE_RECIPES + " (" + COL_INGREDIENT_COUNT + ")");
+        RecipeSearchIndex.create(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The table only mirrors the server, so it is simply rebuilt
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RECIPES);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DETAILS);
+        RecipeSearchIndex.drop(db);
+        onCreate(db);
+    }
+
+    /**
+     * Replaces every stored recipe and rebuilds the search index in one transaction
+     */
+    void replaceAll(List<Recipe> recipes) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_RECIPES, null, null);
+            db.delete(TABLE_DETAILS, null, null);
+            RecipeSearchIndex.clear(db);
+            int position = 0;
+            for (Recipe recipe : recipes) {
+                ContentValues values = toSummaryValues(recipe);
+                values.put(COL_POSITION, position++);
+                long rowId = db.insertWithOnConflict(TABLE_RECIPES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                putDetails(db, rowId, recipe);
+                RecipeSearchIndex.put(db, rowId, recipe);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Starts writing a sync that arrives one recipe at a time
+     */
+    SyncWriter beginSync() {
+        return new SyncWriter(getWritableDatabase());
+    }
+
+    /**
+     * Writes a streamed sync. Parsed changes are collected and written BATCH_SIZE at a time,
+     * each batch in its own short transaction, so no transaction is open while the response
+     * is still downloading and only one batch of recipes is held in memory. The rows written
+     * are remembered in a temporary table. A full snapshot removes the rows it did not
+     * contain and takes over its order on commit.
+     *
+     * Closing without committing drops the batch not written yet, earlier batches stay like
+     * a partial delta.
+     */
+    class SyncWriter implements Closeable {
+        private static final int BATCH_SIZE = 100;
+
+        private final SQLiteDatabase db;
+        // Changes not written yet, in the order they were parsed
+        private final List<PendingWrite> pending = new ArrayList<>();
+        private long nextPosition;
+        private int streamIndex = 0;
+        private boolean committed = false;
+
+        private SyncWriter(SQLiteDatabase db) {
+            this.db = db;
+            db.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + TABLE_SYNC_SEEN + " (" +
+                    COL_ROW_ID + " INTEGER PRIMARY KEY, " + COL_STREAM_INDEX + " INTEGER)");
+            db.delete(TABLE_SYNC_SEEN, null, null);
+            nextPosition = DatabaseUtils.longForQuery(db,
+                    "SELECT IFNULL(MAX(" + COL_POSITION + "), -1) + 1 FROM " + TABLE_RECIPES, null);
+        }
+
+        /**
+         * Updates or inserts a recipe, new recipes go after the existing ones
+         */
+        void put(Recipe recipe) {
+            if (recipe.getId() == null) {
+                return;
+            }
+            pending.add(new PendingWrite(recipe, null));
+            flushIfFull();
+        }
+
+        void delete(String recipeId) {
+            pending.add(new PendingWrite(null, recipeId));
+            flushIfFull();
+        }
+
+        private void store(Recipe recipe) {
+            ContentValues values = toSummaryValues(recipe);
+            long rowId = findRowId(db, recipe.getId());
+            if (rowId != -1) {
+                db.update(TABLE_RECIPES, values, "rowid = ?", new String[]{String.valueOf(rowId)});
+                RecipeSearchIndex.remove(db, rowId);
+            } else {
+                values.put(COL_POSITION, nextPosition++);
+                rowId = db.insert(TABLE_RECIPES, null, values);
+            }
+            putDetails(db, rowId, recipe);
+            RecipeSearchIndex.put(db, rowId, recipe);
+
+            ContentValues seen = new ContentValues();
+            seen.put(COL_ROW_ID, rowId);
+            seen.put(COL_STREAM_INDEX, streamIndex++);
+            db.insertWithOnConflict(TABLE_SYNC_SEEN, null, seen, SQLiteDatabase.CONFLICT_REPLACE);
+        }
+
+        private void remove(String recipeId) {
+            long rowId = findRowId(db, recipeId);
+            if (rowId != -1) {
+                db.delete(TABLE_RECIPES, "rowid = ?", new String[]{String.valueOf(rowId)});
+                db.delete(TABLE_DETAILS, COL_RECIPE_ROW + " = ?", new String[]{String.valueOf(rowId)});
+                RecipeSearchIndex.remove(db, rowId);
+            }
+        }
+
+        /**
+         * @param fullSnapshot True if the sync contained every recipe, not only changes
+         * @return Number of recipes stored after the sync
+         */
+        long commit(boolean fullSnapshot) {
+            flush();
+
+            db.beginTransaction();
+            try {
+                if (fullSnapshot) {
+                    String seenRows = "(SELECT " + COL_ROW_ID + " FROM " + TABLE_SYNC_SEEN + ")";
+                    db.execSQL("DELETE FROM " + RecipeSearchIndex.TABLE + " WHERE docid NOT IN " + seenRows);
+                    db.execSQL("DELETE FROM " + TABLE_RECIPES + " WHERE rowid NOT IN " + seenRows);
+                    db.execSQL("DELETE FROM " + TABLE_DETAILS + " WHERE " + COL_RECIPE_ROW + " NOT IN " + seenRows);
+                    db.execSQL("UPDATE " + TABLE_RECIPES + " SET " + COL_POSITION + " = (SELECT " + COL_STREAM_INDEX +
+                            " FROM " + TABLE_SYNC_SEEN + " WHERE " + COL_ROW_ID + " = " + TABLE_RECIPES + ".rowid)");
+                }
+                db.delete(TABLE_SYNC_SEEN, null, null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            committed = true;
+            return count();
+        }
+
+        @Override
+        public void close() {
+            if (!committed) {
+                pending.clear();
+            }
+        }
+
+        private void flushIfFull() {
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the collected changes in one transaction
+         */
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            db.beginTransaction();
+            try {
+                for (PendingWrite write : pending) {
+                    if (write.recipe != null) {
+                        store(write.recipe);
+                    } else {
+                        remove(write.deletedId);
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * A recipe to store, or the id of one to delete when recipe is null
+     */
+    private static class PendingWrite {
+        final Recipe recipe;
+        final String deletedId;
+
+        PendingWrite(Recipe recipe, String deletedId) {
+            this.recipe = recipe;
+            this.deletedId = deletedId;
+        }
+    }
+
+    long count() {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_RECIPES);
+    }
+
+    /**
+     * Every recipe with its details, in server order
+     */
+    List<Recipe> getAll() {
+        List<Recipe> recipes = new ArrayList<>();
+        stringPool.startLoad();
+        try (Cursor cursor = getReadableDatabase().rawQuery(FULL_SELECT + " ORDER BY r." + COL_POSITION, null)) {
+            while (cursor.moveToNext()) {
+                recipes.add(readFull(cursor));
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * One recipe with its details, null if it is not cached
+     */
+    Recipe getRecipe(String recipeId) {
+        try (Cursor cursor = getReadableDatabase().rawQuery(FULL_SELECT + " WHERE r." + COL_ID + " = ?",
+                new String[]{recipeId})) {
+            return cursor.moveToFirst() ? readFull(cursor) : null;
+        }
+    }
+
+    /**
+     * Pool shared by every recipe this database loads
+     */
+    RecipeStringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * Summaries of recipes whose title or ingredients contain every query term as a
+     * prefix, best BM25 match first
+     * @param normalizedQuery Query already folded by RecipeTextNormalizer
+     */
+    List<RecipeSearchIndex.Hit> search(String normalizedQuery) {
+        String matchQuery = RecipeSearchIndex.buildMatchQuery(normalizedQuery);
+        return matchQuery != null ? searchMatch(matchQuery) : new ArrayList<>();
+    }
+
+    /**
+     * Runs an FTS MATCH expression and returns summaries with their BM25 score, best first
+     */
+    List<RecipeSearchIndex.Hit> searchMatch(String matchQuery) {
+        List<RecipeSearchIndex.Hit> hits = new ArrayList<>();
+        String index = RecipeSearchIndex.TABLE;
+        String sql = "SELECT r." + COL_ID + ", r." + COL_TITLE + ", r." + COL_AUTHOR + ", r." + COL_IMAGE_URL +
+                ", r." + COL_TIME + ", r." + COL_AVERAGE_RATING +
+                ", matchinfo(" + index + ", '" + RecipeSearchIndex.MATCHINFO_FORMAT + "')" +
+                ", " + index + "." + RecipeSearchIndex.COL_TITLE + ", " + index + "." + RecipeSearchIndex.COL_INGREDIENTS +
+                " FROM " + index + " JOIN " + TABLE_RECIPES + " r ON r.rowid = " + index + ".docid" +
+                " WHERE " + index + " MATCH ?";
+
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, new String[]{matchQuery})) {
+            while (cursor.moveToNext()) {
+                Recipe recipe = readSummary(cursor).build();
+                RecipeSearchIndex.Hit hit = new RecipeSearchIndex.Hit(recipe, cursor.getString(7), cursor.getString(8));
+                hit.score = RecipeSearchIndex.bm25(cursor.getBlob(6));
+                hits.add(hit);
+            }
+        }
+
+        hits.sort((a, b) -> Double.compare(b.score, a.score));
+        return hits;
+    }
+
+    /**
+     * Every distinct term in the search index, sorted
+     */
+    List<String> loadSearchTerms() {
+        List<String> terms = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT term FROM " + RecipeSearchIndex.TERMS_TABLE +
+                " WHERE col = '*' ORDER BY term", null)) {
+            while (cursor.moveToNext()) {
+                terms.add(cursor.getString(0));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Summaries of the recipes passing a filter, in its sort order, as one indexed query
+     */
+    List<Recipe> filter(RecipeFilter filter, int limit) {
+        StringBuilder selection = new StringBuilder();
+        List<String> selectionArgs = new ArrayList<>();
+        if (filter.getMaxMinutes() != RecipeFacets.UNKNOWN) {
+            appendCondition(selection, COL_MINUTES + " <= ?");
+            selectionArgs.add(String.valueOf(filter.getMaxMinutes()));
+        }
+        if (filter.getMinRating() > 0) {
+            appendCondition(selection, COL_AVERAGE_RATING + " >= ?");
+            selectionArgs.add(String.valueOf(filter.getMinRating()));
+        }
+        if (filter.getMaxIngredients() != RecipeFacets.UNKNOWN) {
+            appendCondition(selection, COL_INGREDIENT_COUNT + " BETWEEN 1 AND ?");
+            selectionArgs.add(String.valueOf(filter.getMaxIngredients()));
+        }
+
+        String orderBy;
+        switch (filter.getSort()) {
+            case QUICKEST:
+                orderBy = COL_MINUTES + " IS NULL, " + COL_MINUTES + ", " + COL_POSITION;
+                break;
+            case TOP_RATED:
+                orderBy = COL_AVERAGE_RATING + " DESC, " + COL_POSITION;
+                break;
+            case FEWEST_INGREDIENTS:
+                orderBy = COL_INGREDIENT_COUNT + " = 0, " + COL_INGREDIENT_COUNT + ", " + COL_POSITION;
+                break;
+            default:
+                orderBy = COL_POSITION;
+                break;
+        }
+
+        return query(SUMMARY_COLUMNS, selection.length() > 0 ? selection.toString() : null,
+                selectionArgs.toArray(new String[0]), orderBy, String.valueOf(limit));
+    }
+
+    /**
+     * Summaries of the given recipes in the given order, skipping ids that are not cached
+     */
+    List<Recipe> getSummaries(List<String> recipeIds) {
+        List<Recipe> summaries = new ArrayList<>(recipeIds.size());
+        if (recipeIds.isEmpty()) {
+            return summaries;
+        }
+
+        String placeholders = TextUtils.join(",", Collections.nCopies(recipeIds.size(), "?"));
+        List<Recipe> recipes = query(SUMMARY_COLUMNS, COL_ID + " IN (" + placeholders + ")",
+                recipeIds.toArray(new String[0]));
+
+        Map<String, Recipe> recipesById = new HashMap<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            recipesById.put(recipe.getId(), recipe);
+        }
+        for (String recipeId : recipeIds) {
+            Recipe recipe = recipesById.get(recipeId);
+            if (recipe != null) {
+                summaries.add(recipe);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Builds the similarity index from the stored signatures, nothing is recomputed
+     */
+    RecipeSimilarityIndex loadSimilarityIndex() {
+        RecipeSimilarityIndex index = new RecipeSimilarityIndex();
+        String sql = "SELECT r." + COL_ID + ", d." + COL_INGREDIENT_SIGNATURE +
+                " FROM " + TABLE_DETAILS + " d JOIN " + TABLE_RECIPES + " r ON r.rowid = d." + COL_RECIPE_ROW +
+                " WHERE d." + COL_INGREDIENT_SIGNATURE + " IS NOT NULL";
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, null)) {
+            while (cursor.moveToNext()) {
+                index.put(cursor.getString(0), RecipeSimilarityIndex.fromBytes(cursor.getBlob(1)));
+            }
+        }
+        return index;
+    }
+
+    long countByAuthor(String authorId) {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_RECIPES,
+                COL_AUTHOR + " = ?", new String[]{authorId});
+    }
+
+    private List<Recipe> query(String[] columns, String selection, String[] selectionArgs) {
+        return query(columns, selection, selectionArgs, COL_POSITION, null);
+    }
+
+    private List<Recipe> query(String[] columns, String selection, String[] selectionArgs,
+                               String orderBy, String limit) {
+        List<Recipe> recipes = new ArrayList<>();
+
+        try (Cursor cursor = getReadableDatabase().query(TABLE_RECIPES, columns, selection, selectionArgs,
+                null, null, orderBy, limit)) {
+            while (cursor.moveToNext()) {
+                recipes.add(readSummary(cursor).build());
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * Reads a row of FULL_SELECT
+     */
+    private Recipe readFull(Cursor cursor) {
+        List<String> ingredients = gson.fromJson(cursor.getString(6), STRING_LIST_TYPE);
+        List<ModelResponse.RecipeDetailResponse.Rating> ratings = gson.fromJson(cursor.getString(8), RATING_LIST_TYPE);
+        return readSummary(cursor)
+                .ingredients(stringPool.internAll(ingredients))
+                .instructions(gson.fromJson(cursor.getString(7), STRING_LIST_TYPE))
+                .rating(stringPool.internRatings(ratings))
+                .build();
+    }
+
+    /**
+     * Reads the summary columns, which every query selects first and in the same order
+     */
+    private Recipe.Builder readSummary(Cursor cursor) {
+        Recipe.Builder recipe = new Recipe.Builder()
+                .id(cursor.getString(0))
+                .title(cursor.getString(1))
+                .author(stringPool.intern(cursor.getString(2)))
+                .imageUrl(cursor.getString(3))
+                .time(stringPool.intern(cursor.getString(4)));
+        if (cursor.getDouble(5) > 0) {
+            recipe.averageRating(cursor.getDouble(5));
+        }
+        return recipe;
+    }
+
+    private static void appendCondition(StringBuilder selection, String condition) {
+        if (selection.length() > 0) {
+            selection.append(" AND ");
+        }
+        selection.append(condition);
+    }
+
+    private static long findRowId(SQLiteDatabase db, String recipeId) {
+        try (Cursor cursor = db.query(TABLE_RECIPES, new String[]{"rowid"}, COL_ID + " = ?",
+                new String[]{recipeId}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        }
+    }
+
+    /**
+     * Writes the details of the recipe stored at rowId, replacing earlier ones
+     */
+    private void putDetails(SQLiteDatabase db, long rowId, Recipe recipe) {
+        ContentValues values = new ContentValues();
+        values.put(COL_RECIPE_ROW, rowId);
+        values.put(COL_INGREDIENTS, gson.toJson(recipe.getIngredients()));
+        values.put(COL_INSTRUCTIONS, gson.toJson(recipe.getInstructions()));
+        values.put(COL_RATINGS, gson.toJson(recipe.getRating()));
+
+        int[] signature = RecipeSimilarityIndex.computeSignature(recipe.getIngredients());
+        if (signature != null) {
+            values.put(COL_INGREDIENT_SIGNATURE, RecipeSimilarityIndex.toBytes(signature));
+        } else {
+            values.putNull(COL_INGREDIENT_SIGNATURE);
+        }
+        db.insertWithOnConflict(TABLE_DETAILS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private ContentValues toSummaryValues(Recipe recipe) {
+        ContentValues values = new ContentValues();
+        values.put(COL_ID, recipe.getId());
+        values.put(COL_TITLE, recipe.getTitle());
+        values.put(COL_TITLE_NORMALIZED, RecipeTextNormalizer.normalize(recipe.getTitle()));
+        values.put(COL_AUTHOR, recipe.getAuthor());
+        values.put(COL_IMAGE_URL, recipe.getImageUrl());
+        values.put(COL_TIME, recipe.getTime());
+        values.put(COL_AVERAGE_RATING, recipe.getAverageRating());
+
+        int minutes = RecipeFacets.parseMinutes(recipe.getTime());
+        if (minutes != RecipeFacets.UNKNOWN) {
+            values.put(COL_MINUTES, minutes);
+        } else {
+            values.putNull(COL_MINUTES);
+        }
+        values.put(COL_INGREDIENT_COUNT, RecipeFacets.ingredientCount(recipe));
+        return values;
+    }
+}
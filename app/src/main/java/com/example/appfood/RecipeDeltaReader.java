@@ -0,0 +1,96 @@
+package com.example.appfood;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import api.ApiGson;
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Reads a get-all-recipes sync response token by token and hands every recipe to the
+ * cache as soon as it is parsed, so the catalog is never held in memory as a whole.
+ *
+ * Expected shape, with unknown fields skipped and fields in any order:
+ * {"status": ..., "data": {"recipes": [...], "deletedIds": [...], "syncedAt": 0}}
+ * syncedAt is the server time of the sync, 0 when the server ignored the since parameter.
+ */
+class RecipeDeltaReader {
+    private final Gson gson = ApiGson.get();
+
+    private int recipeCount = 0;
+    private int deletedCount = 0;
+    private long syncedAt = 0;
+
+    /**
+     * Receives the changes as they are parsed, a RecipeCache.SyncSession in the app
+     */
+    interface Sink {
+        void putRecipe(Recipe recipe);
+        void deleteRecipe(String recipeId);
+    }
+
+    /**
+     * Streams the response into the session without committing it
+     */
+    void read(Reader body, Sink session) throws IOException {
+        try (JsonReader reader = new JsonReader(body)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("data".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readData(reader, session);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+    }
+
+    int getRecipeCount() {
+        return recipeCount;
+    }
+
+    int getDeletedCount() {
+        return deletedCount;
+    }
+
+    long getSyncedAt() {
+        return syncedAt;
+    }
+
+    private void readData(JsonReader reader, Sink session) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+            } else if ("recipes".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Recipe recipe = gson.fromJson(reader, Recipe.class);
+                    if (recipe != null) {
+                        session.putRecipe(recipe);
+                        recipeCount++;
+                    }
+                }
+                reader.endArray();
+            } else if ("deletedIds".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    session.deleteRecipe(reader.nextString());
+                    deletedCount++;
+                }
+                reader.endArray();
+            } else if ("syncedAt".equals(name)) {
+                syncedAt = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+}
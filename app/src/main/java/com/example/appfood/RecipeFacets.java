@@ -0,0 +1,117 @@
+package com.example.appfood;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Numeric values derived from free-form recipe fields, computed once when a recipe is
+ * cached so filters and sorts compare numbers instead of parsing text.
+ */
+final class RecipeFacets {
+    static final int UNKNOWN = -1;
+
+    private RecipeFacets() {
+    }
+
+    /**
+     * Reads a cooking time such as "45 phút", "1 giờ 30 phút", "1h30", "1:15" or
+     * "30-40 mins" as minutes, taking the upper end of a range or the last of a list
+     * such as "10, 15 phút"
+     * @return Minutes, or UNKNOWN if the text has no number
+     */
+    static int parseMinutes(String time) {
+        String text = RecipeTextNormalizer.normalize(time);
+        int total = 0;
+        boolean found = false;
+        boolean afterHours = false;
+
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            int start = i;
+            boolean separatorSeen = false;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isDigit(c)) {
+                    i++;
+                } else if ((c == '.' || c == ',') && !separatorSeen && i + 1 < text.length() &&
+                        Character.isDigit(text.charAt(i + 1))) {
+                    // At most one decimal separator, "10,15,20" is a list and not a number
+                    separatorSeen = true;
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            double value;
+            try {
+                value = Double.parseDouble(text.substring(start, i).replace(',', '.'));
+            } catch (NumberFormatException e) {
+                return UNKNOWN;
+            }
+
+            while (i < text.length() && text.charAt(i) == ' ') {
+                i++;
+            }
+            int unitStart = i;
+            while (i < text.length() && Character.isLetter(text.charAt(i))) {
+                i++;
+            }
+            String unit = text.substring(unitStart, i);
+
+            if (unit.isEmpty() && i < text.length() && (text.charAt(i) == '-' || text.charAt(i) == ',')) {
+                // Lower end of a range or an earlier alternative, the last value follows with the unit
+                continue;
+            }
+
+            if (isHourUnit(unit) || (unit.isEmpty() && i < text.length() && text.charAt(i) == ':')) {
+                total += (int) Math.round(value * 60);
+                afterHours = true;
+            } else if (isMinuteUnit(unit) || (unit.isEmpty() && afterHours) || (unit.isEmpty() && !found)) {
+                total += (int) Math.round(value);
+            } else {
+                continue;
+            }
+            found = true;
+        }
+        return found ? total : UNKNOWN;
+    }
+
+    static int ingredientCount(Recipe recipe) {
+        return recipe.getIngredients() != null ? recipe.getIngredients().size() : 0;
+    }
+
+    private static boolean isHourUnit(String unit) {
+        switch (unit) {
+            case "h":
+            case "hr":
+            case "hrs":
+            case "hour":
+            case "hours":
+            case "gio":
+            case "tieng":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isMinuteUnit(String unit) {
+        switch (unit) {
+            case "m":
+            case "p":
+            case "ph":
+            case "min":
+            case "mins":
+            case "minute":
+            case "minutes":
+            case "phut":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
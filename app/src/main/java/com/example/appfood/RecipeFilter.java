@@ -0,0 +1,153 @@
+package com.example.appfood;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Combines cooking time, rating and ingredient count limits with a sort order.
+ *
+ * The same filter runs as one indexed query over the cached catalog through
+ * RecipeCache.filterRecipes, or over a list a screen already holds through apply.
+ */
+public class RecipeFilter {
+    public enum Sort {
+        // Order the recipes came in
+        DEFAULT,
+        QUICKEST,
+        TOP_RATED,
+        FEWEST_INGREDIENTS
+    }
+
+    private int maxMinutes = RecipeFacets.UNKNOWN;
+    private double minRating = 0;
+    private int maxIngredients = RecipeFacets.UNKNOWN;
+    private Sort sort = Sort.DEFAULT;
+
+    /**
+     * Keeps recipes whose cooking time is known and at most the given minutes
+     */
+    public RecipeFilter maxMinutes(int minutes) {
+        maxMinutes = minutes;
+        return this;
+    }
+
+    public RecipeFilter minRating(double rating) {
+        minRating = rating;
+        return this;
+    }
+
+    /**
+     * Keeps recipes whose ingredient list is known and at most the given length
+     */
+    public RecipeFilter maxIngredients(int count) {
+        maxIngredients = count;
+        return this;
+    }
+
+    public RecipeFilter sortBy(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return maxMinutes == RecipeFacets.UNKNOWN && minRating <= 0 &&
+                maxIngredients == RecipeFacets.UNKNOWN && sort == Sort.DEFAULT;
+    }
+
+    /**
+     * Checks if the result changes when ratings arrive, so it has to be applied again
+     */
+    public boolean dependsOnRating() {
+        return minRating > 0 || sort == Sort.TOP_RATED;
+    }
+
+    /**
+     * Filters and sorts recipes in one pass, reading each recipe's values once.
+     * The given list is not changed
+     */
+    public List<Recipe> apply(List<Recipe> recipes) {
+        if (isEmpty()) {
+            return new ArrayList<>(recipes);
+        }
+
+        int size = recipes.size();
+        int[] minutes = new int[size];
+        double[] ratings = new double[size];
+        int[] ingredientCounts = new int[size];
+        List<Integer> selected = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Recipe recipe = recipes.get(i);
+            minutes[i] = RecipeFacets.parseMinutes(recipe.getTime());
+            ratings[i] = recipe.getAverageRating();
+            ingredientCounts[i] = RecipeFacets.ingredientCount(recipe);
+            if (matches(minutes[i], ratings[i], ingredientCounts[i])) {
+                selected.add(i);
+            }
+        }
+
+        switch (sort) {
+            case QUICKEST:
+                selected.sort((a, b) -> compareKnownFirst(minutes[a], minutes[b], RecipeFacets.UNKNOWN));
+                break;
+            case TOP_RATED:
+                selected.sort((a, b) -> Double.compare(ratings[b], ratings[a]));
+                break;
+            case FEWEST_INGREDIENTS:
+                selected.sort((a, b) -> compareKnownFirst(ingredientCounts[a], ingredientCounts[b], 0));
+                break;
+            default:
+                break;
+        }
+
+        List<Recipe> result = new ArrayList<>(selected.size());
+        for (int index : selected) {
+            result.add(recipes.get(index));
+        }
+        return result;
+    }
+
+    private boolean matches(int minutes, double rating, int ingredientCount) {
+        if (maxMinutes != RecipeFacets.UNKNOWN && (minutes == RecipeFacets.UNKNOWN || minutes > maxMinutes)) {
+            return false;
+        }
+        if (minRating > 0 && rating < minRating) {
+            return false;
+        }
+        return maxIngredients == RecipeFacets.UNKNOWN || (ingredientCount > 0 && ingredientCount <= maxIngredients);
+    }
+
+    int getMaxMinutes() {
+        return maxMinutes;
+    }
+
+    double getMinRating() {
+        return minRating;
+    }
+
+    int getMaxIngredients() {
+        return maxIngredients;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Equal for filters that select and order the same recipes
+     */
+    String getCacheKey() {
+        return maxMinutes + "|" + minRating + "|" + maxIngredients + "|" + sort;
+    }
+
+    /**
+     * Ascending order with unknown values last
+     */
+    private static int compareKnownFirst(int a, int b, int unknown) {
+        if (a == unknown || b == unknown) {
+            return Boolean.compare(a == unknown, b == unknown);
+        }
+        return Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.appfood;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo-tolerant lookup over the terms of the recipe search index.
+ *
+ * Terms are indexed by their trigrams. A misspelled query term only compares edit distance
+ * against terms that share enough trigrams with it, then the closest terms are searched
+ * through the normal full-text index instead of the misspelled one.
+ */
+class RecipeFuzzyIndex {
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final int MAX_CANDIDATES_PER_TERM = 8;
+
+    private final String[] terms;
+    private final Map<String, int[]> postings;
+
+    /**
+     * A correction for one query term
+     */
+    static class Candidate {
+        final String term;
+        final int distance;
+
+        Candidate(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * @param sortedTerms Distinct normalized index terms in ascending order
+     */
+    RecipeFuzzyIndex(List<String> sortedTerms) {
+        terms = sortedTerms.toArray(new String[0]);
+
+        Map<String, List<Integer>> trigramTerms = new HashMap<>();
+        for (int termId = 0; termId < terms.length; termId++) {
+            for (String trigram : trigrams(terms[termId])) {
+                List<Integer> termIds = trigramTerms.get(trigram);
+                if (termIds == null) {
+                    termIds = new ArrayList<>();
+                    trigramTerms.put(trigram, termIds);
+                }
+                // A term can repeat a trigram, only list it once
+                if (termIds.isEmpty() || termIds.get(termIds.size() - 1) != termId) {
+                    termIds.add(termId);
+                }
+            }
+        }
+
+        postings = new HashMap<>(trigramTerms.size());
+        for (Map.Entry<String, List<Integer>> entry : trigramTerms.entrySet()) {
+            List<Integer> termIds = entry.getValue();
+            int[] ids = new int[termIds.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = termIds.get(i);
+            }
+            postings.put(entry.getKey(), ids);
+        }
+    }
+
+    /**
+     * Checks if some index term starts with the given text, i.e. the exact prefix search can match it
+     */
+    boolean hasPrefix(String prefix) {
+        int position = Arrays.binarySearch(terms, prefix);
+        if (position >= 0) {
+            return true;
+        }
+
+        int insertionPoint = -position - 1;
+        return insertionPoint < terms.length && terms[insertionPoint].startsWith(prefix);
+    }
+
+    /**
+     * Finds index terms within a small edit distance of a query term, closest first
+     */
+    List<Candidate> findCandidates(String queryTerm) {
+        if (queryTerm.length() < MIN_TERM_LENGTH) {
+            return Collections.emptyList();
+        }
+
+        int maxDistance = maxDistanceFor(queryTerm);
+        List<String> queryTrigrams = trigrams(queryTerm);
+
+        // A swap of two neighbouring letters changes up to four trigrams, any other edit up
+        // to three, so a match keeps at least the rest of them
+        int minShared = queryTrigrams.size() - 4 * maxDistance;
+
+        List<Candidate> candidates = new ArrayList<>();
+        if (minShared <= 0) {
+            // Short terms can share no trigram with a match, e.g. "moui" and "muoi", so compare them all
+            for (String term : terms) {
+                addIfClose(queryTerm, term, maxDistance, candidates);
+            }
+        } else {
+            int[] shared = new int[terms.length];
+            List<Integer> reached = new ArrayList<>();
+            for (String trigram : queryTrigrams) {
+                int[] termIds = postings.get(trigram);
+                if (termIds == null) {
+                    continue;
+                }
+                for (int termId : termIds) {
+                    if (shared[termId]++ == 0) {
+                        reached.add(termId);
+                    }
+                }
+            }
+
+            for (int termId : reached) {
+                if (shared[termId] >= minShared) {
+                    addIfClose(queryTerm, terms[termId], maxDistance, candidates);
+                }
+            }
+        }
+
+        candidates.sort((a, b) -> Integer.compare(a.distance, b.distance));
+        return candidates.size() > MAX_CANDIDATES_PER_TERM
+                ? candidates.subList(0, MAX_CANDIDATES_PER_TERM)
+                : candidates;
+    }
+
+    private static void addIfClose(String queryTerm, String term, int maxDistance, List<Candidate> candidates) {
+        if (Math.abs(term.length() - queryTerm.length()) > maxDistance) {
+            return;
+        }
+
+        int distance = boundedEditDistance(queryTerm, term, maxDistance);
+        if (distance <= maxDistance) {
+            candidates.add(new Candidate(term, distance));
+        }
+    }
+
+    private static int maxDistanceFor(String term) {
+        return term.length() <= 4 ? 1 : 2;
+    }
+
+    /**
+     * Trigrams of a term padded with boundary markers, so short terms still have some
+     */
+    private static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Edit distance where swapping two neighbouring letters counts as one edit, a common
+     * typing mistake. Gives up once every path exceeds maxDistance and returns maxDistance + 1
+     */
+    static int boundedEditDistance(String a, String b, int maxDistance) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        int previousRowMinimum = 0;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMinimum = Math.min(rowMinimum, distance);
+            }
+            // A swap can still reach back one row, so both rows must be out of bounds
+            if (rowMinimum > maxDistance && previousRowMinimum >= maxDistance) {
+                return maxDistance + 1;
+            }
+            previousRowMinimum = rowMinimum;
+
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], maxDistance + 1);
+    }
+}
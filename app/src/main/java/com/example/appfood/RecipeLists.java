@@ -0,0 +1,44 @@
+package com.example.appfood;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Updates recipes held in a screen's list. Recipes do not change, so a rating or author
+ * name that arrives later replaces the recipe with an updated copy.
+ */
+public final class RecipeLists {
+
+    private RecipeLists() {
+    }
+
+    /**
+     * Position of the recipe with the given id, -1 if the list holds none
+     */
+    public static int indexOf(List<? extends Recipe> recipes, String recipeId) {
+        if (recipeId == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < recipes.size(); i++) {
+            if (recipeId.equals(recipes.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces the recipe with the given id by the copy change makes of it
+     * @return Position of the replaced recipe, -1 if the list holds none
+     */
+    public static int update(List<Recipe> recipes, String recipeId, UnaryOperator<Recipe> change) {
+        int position = indexOf(recipes, recipeId);
+        if (position >= 0) {
+            recipes.set(position, change.apply(recipes.get(position)));
+        }
+        return position;
+    }
+}
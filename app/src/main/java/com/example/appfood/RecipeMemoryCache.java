@@ -0,0 +1,108 @@
+package com.example.appfood;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Process-wide memory tier in front of RecipeDatabase. Holds the full catalog and recently
+ * shown filtered lists under a byte budget with LRU eviction, so screens that come back
+ * to the same list do not go to disk.
+ *
+ * RecipeCache evicts everything on each write so readers never see data older than the store.
+ */
+class RecipeMemoryCache implements ComponentCallbacks2 {
+    private static final String TAG = "RecipeMemoryCache";
+    private static final String KEY_ALL = "all";
+    private static final String KEY_FILTER_PREFIX = "filter:";
+    private static final int MAX_BUDGET_BYTES = 8 * 1024 * 1024;
+
+    // Rough per-object overheads used to estimate the size of cached recipes
+    private static final int RECIPE_OVERHEAD_BYTES = 96;
+    private static final int LIST_ENTRY_BYTES = 8;
+
+    private final LruCache<String, List<Recipe>> cache;
+
+    RecipeMemoryCache() {
+        int budget = (int) Math.min(MAX_BUDGET_BYTES, Runtime.getRuntime().maxMemory() / 16);
+        cache = new LruCache<String, List<Recipe>>(budget) {
+            @Override
+            protected int sizeOf(@NonNull String key, @NonNull List<Recipe> recipes) {
+                return estimateSize(recipes);
+            }
+        };
+    }
+
+    List<Recipe> getAll() {
+        return cache.get(KEY_ALL);
+    }
+
+    void putAll(List<Recipe> recipes) {
+        cache.put(KEY_ALL, recipes);
+    }
+
+    List<Recipe> getFilterResults(String filterKey) {
+        return cache.get(KEY_FILTER_PREFIX + filterKey);
+    }
+
+    void putFilterResults(String filterKey, List<Recipe> recipes) {
+        cache.put(KEY_FILTER_PREFIX + filterKey, recipes);
+    }
+
+    void evictAll() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW ||
+                level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            Log.d(TAG, "Releasing recipe memory cache, trim level " + level);
+            cache.evictAll();
+        } else {
+            cache.trimToSize(cache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        cache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    private static int estimateSize(List<Recipe> recipes) {
+        int size = LIST_ENTRY_BYTES * recipes.size();
+        for (Recipe recipe : recipes) {
+            size += RECIPE_OVERHEAD_BYTES + stringSize(recipe.getId()) + stringSize(recipe.getTitle()) +
+                    stringSize(recipe.getAuthor()) + stringSize(recipe.getImageUrl()) + stringSize(recipe.getTime()) +
+                    listSize(recipe.getIngredients()) + listSize(recipe.getInstructions());
+        }
+        return Math.max(size, 1);
+    }
+
+    private static int listSize(List<String> values) {
+        if (values == null) {
+            return 0;
+        }
+
+        int size = LIST_ENTRY_BYTES * values.size();
+        for (String value : values) {
+            size += stringSize(value);
+        }
+        return size;
+    }
+
+    static int stringSize(String value) {
+        return value != null ? 40 + 2 * value.length() : 0;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.appfood;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Answers "what can I cook with these ingredients" over the cached catalog.
+ *
+ * Ingredient lines are reduced to ingredient names ("200g thịt bò" becomes "thit bo") and
+ * numbered in a dictionary. Each recipe keeps the set of its ingredient numbers as a
+ * bitset that only stores its non-zero 64-bit words, so a pantry is matched against
+ * a recipe with a few AND and bit count operations instead of comparing strings.
+ */
+class RecipePantryIndex {
+    // Units, only dropped right after a number since some are ingredients too: "2 tép tỏi" is
+    // two cloves of garlic, "tép rang" is fried shrimp. Compared before diacritics are removed,
+    // so "lon" (can) is not "lợn" (pork) and "gói" (packet) is not "gỏi" (salad)
+    private static final Set<String> UNIT_WORDS = new HashSet<>(Arrays.asList(
+            "g", "gr", "gram", "grams", "kg", "mg", "ml", "l", "lít", "cup", "cups", "tbsp", "tsp",
+            "muỗng", "thìa", "chén", "bát", "nhánh", "tép", "gói", "hộp", "lon"));
+    // Amounts given without a number, e.g. "ít muối"
+    private static final Set<String> AMOUNT_WORDS = new HashSet<>(Arrays.asList("ít", "chút"));
+
+    private final Recipe[] recipes;
+    private final String[][] dictionaryTerms;
+
+    // Recipe r owns the bitset words offsets[r] until offsets[r + 1]
+    private final int[] offsets;
+    private final int[] wordIndexes;
+    private final long[] words;
+    private final int[] ingredientCounts;
+
+    /**
+     * How well one recipe is covered by a pantry
+     */
+    static class Match {
+        final Recipe recipe;
+        final int matchedCount;
+        final int ingredientCount;
+
+        Match(Recipe recipe, int matchedCount, int ingredientCount) {
+            this.recipe = recipe;
+            this.matchedCount = matchedCount;
+            this.ingredientCount = ingredientCount;
+        }
+
+        int missingCount() {
+            return ingredientCount - matchedCount;
+        }
+
+        double coverage() {
+            return (double) matchedCount / ingredientCount;
+        }
+    }
+
+    RecipePantryIndex(List<Recipe> catalog) {
+        recipes = catalog.toArray(new Recipe[0]);
+
+        // Ingredient names of every recipe, each name once per recipe
+        List<Set<String>> recipeNames = new ArrayList<>(recipes.length);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (Recipe recipe : recipes) {
+            Set<String> names = new HashSet<>();
+            if (recipe.getIngredients() != null) {
+                for (String line : recipe.getIngredients()) {
+                    String name = ingredientName(line);
+                    if (!name.isEmpty() && names.add(name)) {
+                        Integer frequency = frequencies.get(name);
+                        frequencies.put(name, frequency == null ? 1 : frequency + 1);
+                    }
+                }
+            }
+            recipeNames.add(names);
+        }
+
+        // Common ingredients get the low numbers, so most recipes share the same few words
+        List<String> dictionary = new ArrayList<>(frequencies.keySet());
+        dictionary.sort((a, b) -> {
+            int byFrequency = Integer.compare(frequencies.get(b), frequencies.get(a));
+            return byFrequency != 0 ? byFrequency : a.compareTo(b);
+        });
+        Map<String, Integer> ids = new HashMap<>(dictionary.size());
+        dictionaryTerms = new String[dictionary.size()][];
+        for (int id = 0; id < dictionary.size(); id++) {
+            ids.put(dictionary.get(id), id);
+            dictionaryTerms[id] = dictionary.get(id).split(" ");
+        }
+
+        offsets = new int[recipes.length + 1];
+        ingredientCounts = new int[recipes.length];
+        List<long[]> recipeWords = new ArrayList<>(recipes.length);
+        int totalWords = 0;
+        for (int r = 0; r < recipes.length; r++) {
+            Set<String> names = recipeNames.get(r);
+            int[] recipeIds = new int[names.size()];
+            int i = 0;
+            for (String name : names) {
+                recipeIds[i++] = ids.get(name);
+            }
+            Arrays.sort(recipeIds);
+
+            long[] bits = recipeIds.length > 0 ? new long[recipeIds[recipeIds.length - 1] / 64 + 1] : new long[0];
+            for (int id : recipeIds) {
+                bits[id >>> 6] |= 1L << id;
+            }
+            for (long word : bits) {
+                if (word != 0) {
+                    totalWords++;
+                }
+            }
+            recipeWords.add(bits);
+            ingredientCounts[r] = recipeIds.length;
+        }
+
+        wordIndexes = new int[totalWords];
+        words = new long[totalWords];
+        int position = 0;
+        for (int r = 0; r < recipes.length; r++) {
+            offsets[r] = position;
+            long[] bits = recipeWords.get(r);
+            for (int w = 0; w < bits.length; w++) {
+                if (bits[w] != 0) {
+                    wordIndexes[position] = w;
+                    words[position] = bits[w];
+                    position++;
+                }
+            }
+        }
+        offsets[recipes.length] = position;
+    }
+
+    /**
+     * Recipes sharing at least one ingredient with the pantry, fewest missing
+     * ingredients first, then by the share of the recipe the pantry covers
+     * @param pantry Ingredient names as the user typed them, e.g. "bò" covers "thịt bò"
+     */
+    List<Match> match(Collection<String> pantry, int limit) {
+        long[] pantryBits = toBitset(pantry);
+        List<Match> matches = new ArrayList<>();
+        if (pantryBits.length == 0) {
+            return matches;
+        }
+
+        for (int r = 0; r < recipes.length; r++) {
+            int matched = 0;
+            for (int k = offsets[r]; k < offsets[r + 1]; k++) {
+                int w = wordIndexes[k];
+                if (w < pantryBits.length) {
+                    matched += Long.bitCount(words[k] & pantryBits[w]);
+                }
+            }
+            if (matched > 0) {
+                matches.add(new Match(recipes[r], matched, ingredientCounts[r]));
+            }
+        }
+
+        matches.sort((a, b) -> {
+            int byMissing = Integer.compare(a.missingCount(), b.missingCount());
+            return byMissing != 0 ? byMissing : Double.compare(b.coverage(), a.coverage());
+        });
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Sets the bit of every dictionary ingredient that contains all terms of some pantry item
+     */
+    private long[] toBitset(Collection<String> pantry) {
+        List<String[]> pantryTerms = new ArrayList<>();
+        for (String item : pantry) {
+            String name = ingredientName(item);
+            if (!name.isEmpty()) {
+                pantryTerms.add(name.split(" "));
+            }
+        }
+        if (pantryTerms.isEmpty()) {
+            return new long[0];
+        }
+
+        long[] bits = new long[(dictionaryTerms.length + 63) / 64];
+        for (int id = 0; id < dictionaryTerms.length; id++) {
+            for (String[] terms : pantryTerms) {
+                if (containsAll(dictionaryTerms[id], terms)) {
+                    bits[id >>> 6] |= 1L << id;
+                    break;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static boolean containsAll(String[] ingredientTerms, String[] terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String ingredientTerm : ingredientTerms) {
+                if (ingredientTerm.equals(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalized ingredient name without amounts and units, empty if nothing is left
+     */
+    static String ingredientName(String ingredientLine) {
+        if (ingredientLine == null) {
+            return "";
+        }
+
+        String words = Normalizer.normalize(ingredientLine, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder name = new StringBuilder();
+        boolean afterNumber = false;
+        for (String word : RecipeTextNormalizer.splitTerms(words)) {
+            if (containsDigit(word)) {
+                afterNumber = true;
+                continue;
+            }
+            boolean unit = afterNumber && UNIT_WORDS.contains(word);
+            afterNumber = false;
+            if (unit || AMOUNT_WORDS.contains(word)) {
+                continue;
+            }
+
+            if (name.length() > 0) {
+                name.append(' ');
+            }
+            name.append(RecipeTextNormalizer.normalize(word));
+        }
+        return name.toString();
+    }
+
+    private static boolean containsDigit(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isDigit(term.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
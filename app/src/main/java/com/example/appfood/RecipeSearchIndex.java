@@ -0,0 +1,206 @@
+package com.example.appfood;
+
+import android.content.ContentValues;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Full-text index over recipe titles and ingredients, kept in an FTS4 table next to the
+ * recipes table and updated in the same transactions, so it is persisted with the cache
+ * and never has to be rebuilt on startup.
+ *
+ * The table stores text already folded by RecipeTextNormalizer, so accents and case never
+ * have to be dealt with at query time.
+ *
+ * Every query term matches as a prefix, and results are ranked with BM25 computed from
+ * FTS4's matchinfo, with title hits weighted above ingredient hits.
+ */
+class RecipeSearchIndex {
+    private static final String TAG = "RecipeSearchIndex";
+
+    static final String TABLE = "recipe_search";
+    // fts4aux view of the index, one row per distinct term
+    static final String TERMS_TABLE = "recipe_search_terms";
+    static final String COL_TITLE = "title";
+    static final String COL_INGREDIENTS = "ingredients";
+
+    // matchinfo format: phrases, columns, rows, average tokens, row tokens, hit counts
+    static final String MATCHINFO_FORMAT = "pcnalx";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+
+    /**
+     * Creates the index table, preferring the unicode61 tokenizer so letters that
+     * survive normalization are still split into terms correctly
+     */
+    static void create(SQLiteDatabase db) {
+        String columns = COL_TITLE + ", " + COL_INGREDIENTS + ", prefix=\"2,3\"";
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE + " USING fts4(" + columns + ", tokenize=unicode61)");
+        } catch (SQLException e) {
+            Log.w(TAG, "unicode61 tokenizer unavailable, using simple: " + e.getMessage());
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE + " USING fts4(" + columns + ")");
+        }
+        db.execSQL("CREATE VIRTUAL TABLE " + TERMS_TABLE + " USING fts4aux(" + TABLE + ")");
+    }
+
+    static void drop(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TERMS_TABLE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+    }
+
+    /**
+     * Indexes a recipe under the rowid of its row in the recipes table
+     */
+    static void put(SQLiteDatabase db, long rowId, Recipe recipe) {
+        ContentValues values = new ContentValues();
+        values.put("docid", rowId);
+        values.put(COL_TITLE, RecipeTextNormalizer.normalize(recipe.getTitle()));
+        values.put(COL_INGREDIENTS, recipe.getIngredients() != null
+                ? RecipeTextNormalizer.normalize(String.join("\n", recipe.getIngredients())) : "");
+        db.insert(TABLE, null, values);
+    }
+
+    static void remove(SQLiteDatabase db, long rowId) {
+        db.delete(TABLE, "docid = ?", new String[]{String.valueOf(rowId)});
+    }
+
+    static void clear(SQLiteDatabase db) {
+        db.delete(TABLE, null, null);
+    }
+
+    /**
+     * Turns user input into an FTS query where every term must match as a prefix,
+     * or returns null if the input has no searchable terms
+     */
+    static String buildMatchQuery(String normalizedQuery) {
+        List<String> terms = RecipeTextNormalizer.splitTerms(normalizedQuery);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder matchQuery = new StringBuilder();
+        for (String term : terms) {
+            if (matchQuery.length() > 0) {
+                matchQuery.append(' ');
+            }
+            matchQuery.append(term).append('*');
+        }
+        return matchQuery.toString();
+    }
+
+    /**
+     * A search result together with the indexed terms of its title and ingredients,
+     * so a longer query can be checked against it without going back to the index
+     */
+    static class Hit {
+        final Recipe recipe;
+        private final String[] terms;
+        double score;
+
+        /**
+         * @param normalizedTitle Title as stored in the index
+         * @param normalizedIngredients Ingredients as stored in the index
+         */
+        Hit(Recipe recipe, String normalizedTitle, String normalizedIngredients) {
+            this.recipe = recipe;
+            List<String> allTerms = RecipeTextNormalizer.splitTerms(normalizedTitle);
+            if (normalizedIngredients != null) {
+                allTerms.addAll(RecipeTextNormalizer.splitTerms(normalizedIngredients));
+            }
+            this.terms = allTerms.toArray(new String[0]);
+        }
+
+        boolean containsTerm(String term) {
+            for (String indexedTerm : terms) {
+                if (indexedTerm.equals(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Same rule as the FTS query: every query term is a prefix of some indexed term
+         */
+        boolean matches(List<String> queryTerms) {
+            for (String queryTerm : queryTerms) {
+                boolean found = false;
+                for (String term : terms) {
+                    if (term.startsWith(queryTerm)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Keeps the hits that still match a longer query, in their existing order
+     */
+    static List<Hit> narrow(List<Hit> hits, String normalizedQuery) {
+        List<String> queryTerms = RecipeTextNormalizer.splitTerms(normalizedQuery);
+        List<Hit> narrowed = new ArrayList<>();
+        for (Hit hit : hits) {
+            if (hit.matches(queryTerms)) {
+                narrowed.add(hit);
+            }
+        }
+        return narrowed;
+    }
+
+    /**
+     * Scores one matching row from its matchinfo blob
+     */
+    static double bm25(byte[] matchInfoBlob) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfoBlob).order(ByteOrder.nativeOrder());
+        int[] info = new int[matchInfoBlob.length / 4];
+        for (int i = 0; i < info.length; i++) {
+            info[i] = buffer.getInt();
+        }
+
+        int phraseCount = info[0];
+        int columnCount = info[1];
+        int rowCount = info[2];
+        int averageLengthOffset = 3;
+        int rowLengthOffset = averageLengthOffset + columnCount;
+        int hitsOffset = rowLengthOffset + columnCount;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int hitIndex = hitsOffset + 3 * (column + phrase * columnCount);
+                int hitsInRow = info[hitIndex];
+                int rowsWithHits = info[hitIndex + 2];
+                if (hitsInRow == 0) {
+                    continue;
+                }
+
+                double idf = Math.log((rowCount - rowsWithHits + 0.5) / (rowsWithHits + 0.5) + 1);
+                double averageLength = Math.max(1, info[averageLengthOffset + column]);
+                double rowLength = info[rowLengthOffset + column];
+                double termFrequency = hitsInRow * (K1 + 1) /
+                        (hitsInRow + K1 * (1 - B + B * rowLength / averageLength));
+
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                score += weight * idf * termFrequency;
+            }
+        }
+        return score;
+    }
+}
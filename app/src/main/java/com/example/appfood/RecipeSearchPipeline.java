@@ -0,0 +1,134 @@
+package com.example.appfood;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import api.ModelResponse.RecipeResponse.Recipe;
+
+/**
+ * Runs local recipe searches for a search box off the main thread.
+ *
+ * Typing is debounced, a new query supersedes any pending or running one, and a query
+ * that extends the previous one filters the previous results instead of searching the
+ * whole index again, unless a sync changed the catalog since. Results keep the ranking of
+ * the query that produced them.
+ */
+public class RecipeSearchPipeline {
+    private static final String TAG = "RecipeSearchPipeline";
+    private static final long DEBOUNCE_MS = 250;
+
+    // One search at a time is enough, queued searches that were superseded are skipped
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final ResultListener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong generation = new AtomicLong();
+    private Runnable pendingSearch;
+
+    // Last finished search and the catalog version it ran on, only used on the search thread
+    private String lastQuery;
+    private List<RecipeSearchIndex.Hit> lastHits;
+    private long lastCatalogVersion;
+
+    public interface ResultListener {
+        /**
+         * Called on the main thread with the results of the latest query
+         */
+        void onResults(String query, List<Recipe> results);
+    }
+
+    public RecipeSearchPipeline(Context context, ResultListener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules a search once typing pauses, replacing any search scheduled before
+     */
+    public void submit(String query) {
+        cancel();
+        long searchGeneration = generation.get();
+        pendingSearch = () -> execute(query, searchGeneration);
+        mainHandler.postDelayed(pendingSearch, DEBOUNCE_MS);
+    }
+
+    /**
+     * Searches right away, e.g. when the search key is pressed
+     */
+    public void searchNow(String query) {
+        cancel();
+        execute(query, generation.get());
+    }
+
+    /**
+     * Drops the scheduled search and any result that has not been delivered yet
+     */
+    public void cancel() {
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        generation.incrementAndGet();
+    }
+
+    private void execute(String query, long searchGeneration) {
+        pendingSearch = null;
+        searchExecutor.execute(() -> {
+            if (generation.get() != searchGeneration) {
+                return;
+            }
+
+            List<Recipe> results = search(query);
+            mainHandler.post(() -> {
+                if (generation.get() == searchGeneration) {
+                    listener.onResults(query, results);
+                }
+            });
+        });
+    }
+
+    private List<Recipe> search(String query) {
+        String normalizedQuery = RecipeTextNormalizer.normalize(query).trim();
+
+        long catalogVersion = RecipeCache.getCatalogVersion();
+        if (catalogVersion != lastCatalogVersion) {
+            // Recipes were added, changed or deleted, earlier hits cannot be narrowed down
+            lastQuery = null;
+            lastHits = null;
+        }
+
+        List<RecipeSearchIndex.Hit> hits;
+        if (lastQuery != null && lastHits != null && !lastQuery.isEmpty() &&
+                normalizedQuery.startsWith(lastQuery)) {
+            hits = normalizedQuery.equals(lastQuery)
+                    ? lastHits
+                    : RecipeSearchIndex.narrow(lastHits, normalizedQuery);
+            // Corrected (fuzzy) results do not contain the typed words, so search them again
+            if (hits.isEmpty() && !lastHits.isEmpty()) {
+                hits = RecipeCache.searchRecipeHits(context, normalizedQuery);
+            }
+        } else {
+            hits = RecipeCache.searchRecipeHits(context, normalizedQuery);
+        }
+
+        lastQuery = normalizedQuery;
+        lastHits = hits;
+        lastCatalogVersion = catalogVersion;
+        Log.d(TAG, "Found " + hits.size() + " recipes matching '" + query + "'");
+
+        List<Recipe> results = new ArrayList<>(hits.size());
+        for (RecipeSearchIndex.Hit hit : hits) {
+            results.add(hit.recipe);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.appfood;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds recipes with similar ingredients using MinHash signatures and locality-sensitive
+ * hashing.
+ *
+ * A signature is computed from a recipe's ingredient names when the recipe is written to
+ * the cache and stored with it. The index only splits signatures into bands and buckets
+ * recipes whose band is identical, so a lookup compares a recipe with the few recipes
+ * sharing one of its buckets instead of with the whole catalog.
+ */
+class RecipeSimilarityIndex {
+    static final int SIGNATURE_LENGTH = 64;
+    // 16 bands of 4 rows catch most pairs sharing about half of their ingredients
+    private static final int BANDS = 16;
+    private static final int ROWS_PER_BAND = SIGNATURE_LENGTH / BANDS;
+
+    private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < SEEDS.length; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final Map<String, int[]> signatures = new HashMap<>();
+    private final Map<Long, List<String>> buckets = new HashMap<>();
+
+    /**
+     * MinHash signature of a recipe's ingredients, null if it has none
+     */
+    static int[] computeSignature(List<String> ingredients) {
+        if (ingredients == null) {
+            return null;
+        }
+
+        Set<String> names = new HashSet<>();
+        for (String ingredient : ingredients) {
+            String name = RecipePantryIndex.ingredientName(ingredient);
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        if (names.isEmpty()) {
+            return null;
+        }
+
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String name : names) {
+            long nameHash = name.hashCode();
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int hash = (int) (mix(nameHash ^ SEEDS[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * 4);
+        for (int value : signature) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    static int[] fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != SIGNATURE_LENGTH * 4) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] signature = new int[SIGNATURE_LENGTH];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = buffer.getInt();
+        }
+        return signature;
+    }
+
+    /**
+     * Adds or replaces a recipe
+     */
+    synchronized void put(String recipeId, int[] signature) {
+        remove(recipeId);
+        if (signature == null) {
+            return;
+        }
+
+        signatures.put(recipeId, signature);
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            List<String> bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>(2);
+                buckets.put(key, bucket);
+            }
+            bucket.add(recipeId);
+        }
+    }
+
+    synchronized void remove(String recipeId) {
+        int[] signature = signatures.remove(recipeId);
+        if (signature == null) {
+            return;
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            List<String> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(recipeId);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids of the recipes most similar to the given one, most similar first
+     */
+    synchronized List<String> findSimilar(String recipeId, int limit) {
+        List<String> similar = new ArrayList<>();
+        int[] signature = signatures.get(recipeId);
+        if (signature == null) {
+            return similar;
+        }
+
+        Map<String, Integer> agreements = new HashMap<>();
+        for (int band = 0; band < BANDS; band++) {
+            List<String> bucket = buckets.get(bandKey(signature, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (String candidateId : bucket) {
+                if (!candidateId.equals(recipeId) && !agreements.containsKey(candidateId)) {
+                    // Equal positions estimate the Jaccard similarity of the ingredient sets
+                    agreements.put(candidateId, countEqual(signature, signatures.get(candidateId)));
+                }
+            }
+        }
+
+        similar.addAll(agreements.keySet());
+        similar.sort((a, b) -> Integer.compare(agreements.get(b), agreements.get(a)));
+        return similar.size() > limit ? new ArrayList<>(similar.subList(0, limit)) : similar;
+    }
+
+    private static int countEqual(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    /**
+     * 64-bit finalizer from SplitMix64, spreads every input bit over the whole output
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.appfood;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import api.ModelResponse.RecipeDetailResponse.Rating;
+
+/**
+ * Deduplicates the strings that repeat across cached recipes: ingredient lines, cooking
+ * times, author ids and the user ids of ratings. Gson and the cursor create a new String
+ * for every occurrence, so without the pool a catalog holds one copy of "muối" per recipe.
+ *
+ * Full reads (the catalog load and single recipe reads) pool all of these; summary queries
+ * carry no ingredient or rating lists and only pool the author and time.
+ *
+ * Entries are weak, a string leaves the pool once no loaded recipe uses it anymore.
+ */
+class RecipeStringPool {
+    private final Map<String, WeakReference<String>> pool = new WeakHashMap<>();
+
+    // Estimated bytes of the strings passed through the pool since the last startLoad,
+    // and of the copies it dropped
+    private long seenBytes = 0;
+    private long savedBytes = 0;
+
+    /**
+     * Starts counting a new catalog load, so the figures describe that load alone and not
+     * everything the process has read
+     */
+    synchronized void startLoad() {
+        seenBytes = 0;
+        savedBytes = 0;
+    }
+
+    /**
+     * Replaces the strings of a freshly parsed list with their pooled instances, in place
+     * @return The same list
+     */
+    synchronized List<String> internAll(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, intern(values.get(i)));
+        }
+        return values;
+    }
+
+    /**
+     * Replaces the ratings of a freshly parsed list, in place, with copies whose user id is
+     * the pooled instance. Ratings do not change, so they cannot be updated where they are
+     * @return The same list
+     */
+    synchronized List<Rating> internRatings(List<Rating> ratings) {
+        if (ratings == null) {
+            return null;
+        }
+
+        for (int i = 0; i < ratings.size(); i++) {
+            Rating rating = ratings.get(i);
+            if (rating == null) {
+                continue;
+            }
+            String userId = intern(rating.getUserId());
+            if (userId != rating.getUserId()) {
+                ratings.set(i, new Rating(rating.getId(), rating.getRating(), userId, rating.getCreatedAt()));
+            }
+        }
+        return ratings;
+    }
+
+    synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        seenBytes += RecipeMemoryCache.stringSize(value);
+        WeakReference<String> reference = pool.get(value);
+        String pooled = reference != null ? reference.get() : null;
+        if (pooled != null) {
+            savedBytes += RecipeMemoryCache.stringSize(value);
+            return pooled;
+        }
+
+        pool.put(value, new WeakReference<>(value));
+        return value;
+    }
+
+    /**
+     * Estimated size of the strings passed through the pool since startLoad, as if none
+     * had been shared
+     */
+    synchronized long getSeenBytes() {
+        return seenBytes;
+    }
+
+    /**
+     * Estimated size of the duplicate strings the pool let go since startLoad
+     */
+    synchronized long getSavedBytes() {
+        return savedBytes;
+    }
+
+    /**
+     * Number of distinct strings the loaded recipes currently share
+     */
+    synchronized int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.appfood;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import api.RetrofitClient;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * Keeps the local recipe catalog in RecipeCache up to date by downloading only the
+ * recipes that changed or were deleted since the last sync.
+ *
+ * The server time of each sync is stored as a watermark and sent as the since parameter
+ * of the next one. If the server ignores since, the response is the full catalog and
+ * replaces the cache as before.
+ *
+ * The response is parsed while it downloads and recipes are written in small batches as
+ * they are read, so memory use does not grow with the size of the catalog and the
+ * database is never locked while waiting for the network.
+ */
+public class RecipeSync {
+    private static final String TAG = "RecipeSync";
+
+    // Downloads and cache writes are serialized so overlapping syncs cannot interleave
+    private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface SyncCallback {
+        /**
+         * Called on the main thread once the cache reflects the server
+         * @param changedCount Number of recipes added, changed or deleted by this sync
+         */
+        void onSynced(int changedCount);
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Brings the recipe cache up to date
+     * @param authHeader Authorization header, e.g. "Bearer " + token
+     */
+    public static void sync(Context context, String authHeader, SyncCallback callback) {
+        Context appContext = context.getApplicationContext();
+        diskExecutor.execute(() -> {
+            try {
+                int changedCount = streamDelta(appContext, authHeader);
+                mainHandler.post(() -> callback.onSynced(changedCount));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Recipe sync failed: " + e.getMessage());
+                mainHandler.post(() -> callback.onError("Request failed: " + e.getMessage()));
+            }
+        });
+    }
+
+    private static int streamDelta(Context context, String authHeader) throws IOException {
+        long watermark = RecipeCache.hasCachedRecipes(context) ? RecipeCache.getSyncWatermark(context) : 0;
+        Response<ResponseBody> response = RetrofitClient.getApiService()
+                .streamRecipesChangedSince(authHeader, watermark)
+                .execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("Response error: " + response.code());
+        }
+
+        RecipeDeltaReader delta = new RecipeDeltaReader();
+        try (ResponseBody body = response.body();
+             RecipeCache.SyncSession session = RecipeCache.beginSync(context)) {
+            delta.read(body.charStream(), session);
+
+            int changedCount = delta.getRecipeCount() + delta.getDeletedCount();
+            boolean fullSnapshot = isFullSnapshot(watermark, delta);
+            int total = session.commit(fullSnapshot);
+
+            if (fullSnapshot) {
+                Log.d(TAG, "Full sync stored " + total + " recipes");
+            } else if (changedCount == 0) {
+                Log.d(TAG, "Recipe cache already up to date");
+            } else {
+                Log.d(TAG, "Delta sync merged " + changedCount + " changes, " + total + " recipes cached");
+            }
+
+            // Written after the cache so a crash in between only repeats this delta
+            RecipeCache.setSyncWatermark(context, delta.getSyncedAt());
+            return changedCount;
+        }
+    }
+
+    /**
+     * Whether a sync response is the full catalog, either a first sync or a server without
+     * delta support. An empty one is not trusted to mean that every recipe was deleted
+     */
+    static boolean isFullSnapshot(long watermark, RecipeDeltaReader delta) {
+        return (watermark == 0 || delta.getSyncedAt() == 0) && delta.getRecipeCount() > 0;
+    }
+}
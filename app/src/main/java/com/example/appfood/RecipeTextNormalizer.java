@@ -0,0 +1,65 @@
+package com.example.appfood;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Folds recipe text into the form the search index compares: lower case, without
+ * diacritics and with đ/Đ mapped to d, so "pho bo" matches "Phở Bò".
+ *
+ * Recipe text is normalized once when it is written to the cache, queries once per search.
+ */
+final class RecipeTextNormalizer {
+
+    private RecipeTextNormalizer() {
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c < 0x80) {
+                normalized.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            } else if (c == 'đ' || c == 'Đ') {
+                // Vietnamese d with stroke has no decomposition, fold it by hand
+                normalized.append('d');
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Splits already normalized text into runs of letters and digits
+     */
+    static List<String> splitTerms(String normalizedText) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalizedText.length(); i++) {
+            boolean partOfTerm = i < normalizedText.length() && Character.isLetterOrDigit(normalizedText.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                terms.add(normalizedText.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
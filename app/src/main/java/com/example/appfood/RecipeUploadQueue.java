@@ -0,0 +1,555 @@
+package com.example.appfood;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import api.ApiGson;
+import api.ApiService;
+import api.ModelResponse;
+import api.ProgressRequestBody;
+import api.RetrofitClient;
+import api.UriRequestBody;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.Response;
+
+/**
+ * Publishes recipes in the background, so AddRecipeActivity can close as soon as the user
+ * submits. Each submission is kept in a small job store in the app's files directory
+ * together with a private copy of its image, so it outlives the activity and the process
+ * and is picked up again by resume(). The copy and the store write happen right away on
+ * their own thread, not behind uploads already running.
+ *
+ * The image goes up in acknowledged parts through ResumableImageUpload, so a retry resumes
+ * where the last attempt stopped, and the recipe is then created from the uploaded image.
+ * Servers without the upload endpoints get the whole image in the add-recipe request.
+ *
+ * Uploads that fail with an error the server did not act on (408, 429, 503, or a
+ * connection lost before the whole image was sent) are retried with exponential backoff.
+ * Progress is shown in a notification.
+ */
+public class RecipeUploadQueue {
+    private static final String TAG = "RecipeUploadQueue";
+    private static final String STORE_FILENAME = "recipe_uploads.json";
+    private static final String IMAGE_DIR = "recipe_uploads";
+    private static final String CHANNEL_ID = "recipe_uploads_channel";
+    private static final String DEFAULT_IMAGE_TYPE = "image/jpeg";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_RETRY_DELAY_MS = 5_000;
+    private static final long MAX_RETRY_DELAY_MS = 10 * 60 * 1000L;
+
+    private static final Type JOB_LIST_TYPE = new TypeToken<List<UploadJob>>(){}.getType();
+
+    // Runs every upload and owns scheduledJobIds
+    private static final ScheduledExecutorService uploadExecutor = Executors.newSingleThreadScheduledExecutor();
+    // Copies images and stores new jobs, so a submission is saved while an upload is running
+    private static final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private static final Random random = new Random();
+
+    // Guards jobs and the job store, which both executors change
+    private static final Object jobsLock = new Object();
+    private static List<UploadJob> jobs;
+    private static final Set<String> scheduledJobIds = new HashSet<>();
+
+    /**
+     * A submission waiting to be uploaded, stored as JSON
+     */
+    static class UploadJob {
+        String id;
+        String token;
+        String title;
+        String time;
+        List<String> ingredients;
+        List<String> instructions;
+        String imagePath;
+        String imageName;
+        String imageType;
+        int attempts;
+        long nextAttemptAt;
+        // Bytes of the image the server acknowledged
+        long imageOffset;
+        // Set once the server turned out to have no upload endpoints
+        boolean wholeImage;
+
+        // Last progress reported, not stored
+        transient int reportedPercent = -1;
+    }
+
+    /**
+     * Outcome of one attempt at publishing a job
+     */
+    static class Attempt {
+        final boolean uploaded;
+        // False once the server may already have created the recipe
+        final boolean retry;
+        final String error;
+
+        private Attempt(boolean uploaded, boolean retry, String error) {
+            this.uploaded = uploaded;
+            this.retry = retry;
+            this.error = error;
+        }
+
+        static Attempt uploaded() {
+            return new Attempt(true, false, null);
+        }
+
+        static Attempt retry(String error) {
+            return new Attempt(false, true, error);
+        }
+
+        static Attempt failed(String error) {
+            return new Attempt(false, false, error);
+        }
+    }
+
+    /**
+     * Queues a recipe for upload and returns immediately. The image is copied and the job
+     * stored at once on a background thread, the Uri only has to stay readable until then
+     * @return Id of the job
+     */
+    public static String enqueue(Context context, String token, String title, String time,
+                                 List<String> ingredients, List<String> instructions, Uri imageUri) {
+        Context appContext = context.getApplicationContext();
+        UploadJob job = new UploadJob();
+        job.id = UUID.randomUUID().toString();
+        job.token = token;
+        job.title = title;
+        job.time = time;
+        job.ingredients = new ArrayList<>(ingredients);
+        job.instructions = new ArrayList<>(instructions);
+
+        ioExecutor.execute(() -> {
+            try {
+                copyImage(appContext, job, imageUri);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not copy recipe image: " + e.getMessage());
+                notifyFailed(appContext, job, "Could not read the recipe image");
+                return;
+            }
+
+            synchronized (jobsLock) {
+                loadJobs(appContext).add(job);
+                saveJobs(appContext);
+            }
+            uploadExecutor.execute(() -> {
+                // resume() may have picked the stored job up already
+                if (!scheduledJobIds.contains(job.id) && isQueued(appContext, job)) {
+                    schedule(appContext, job, 0);
+                }
+            });
+        });
+        return job.id;
+    }
+
+    /**
+     * Schedules the uploads left over from an earlier process, call once the app starts
+     */
+    public static void resume(Context context) {
+        Context appContext = context.getApplicationContext();
+        uploadExecutor.execute(() -> {
+            long now = System.currentTimeMillis();
+            List<UploadJob> stored;
+            synchronized (jobsLock) {
+                stored = new ArrayList<>(loadJobs(appContext));
+            }
+            for (UploadJob job : stored) {
+                if (!scheduledJobIds.contains(job.id)) {
+                    schedule(appContext, job, Math.max(0, job.nextAttemptAt - now));
+                }
+            }
+        });
+    }
+
+    private static void schedule(Context context, UploadJob job, long delayMs) {
+        scheduledJobIds.add(job.id);
+        uploadExecutor.schedule(() -> {
+            scheduledJobIds.remove(job.id);
+            upload(context, job);
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void upload(Context context, UploadJob job) {
+        File image = new File(job.imagePath);
+        if (!image.exists()) {
+            finish(context, job);
+            notifyFailed(context, job, "The recipe image is missing");
+            return;
+        }
+
+        showProgress(context, job, 0);
+        Attempt attempt = send(RetrofitClient.getApiService(), job,
+                (bytesSent, totalBytes) -> reportProgress(context, job, bytesSent, totalBytes));
+        if (attempt.uploaded) {
+            finish(context, job);
+            FreshnessPolicy.signalChanged(FreshnessPolicy.Section.NEW_RECIPES,
+                    FreshnessPolicy.Section.ALL_RECIPES);
+            notifyUploaded(context, job);
+        } else if (attempt.retry) {
+            retry(context, job, attempt.error);
+        } else {
+            finish(context, job);
+            notifyFailed(context, job, attempt.error);
+        }
+    }
+
+    /**
+     * Sends the job once, the image in parts unless the server cannot take them
+     */
+    static Attempt send(ApiService apiService, UploadJob job, ProgressRequestBody.ProgressListener progressListener) {
+        return send(apiService, job, ResumableImageUpload.PART_SIZE, progressListener);
+    }
+
+    static Attempt send(ApiService apiService, UploadJob job, int partSize,
+                        ProgressRequestBody.ProgressListener progressListener) {
+        if (!job.wholeImage) {
+            Attempt attempt = sendInParts(apiService, job, partSize, progressListener);
+            if (attempt != null) {
+                return attempt;
+            }
+            Log.w(TAG, "Server has no resumable uploads, sending the whole image of '" + job.title + "'");
+            synchronized (jobsLock) {
+                job.wholeImage = true;
+            }
+        }
+        return sendWhole(apiService, job, progressListener);
+    }
+
+    /**
+     * Uploads the parts of the image the server does not hold yet, then creates the recipe
+     * from them. The server creates one recipe per upload id, so unlike sendWhole every
+     * failure of the final request can be retried
+     * @return null if the server has no upload endpoints
+     */
+    private static Attempt sendInParts(ApiService apiService, UploadJob job, int partSize,
+                                       ProgressRequestBody.ProgressListener progressListener) {
+        String authorization = "Bearer " + job.token;
+        ResumableImageUpload upload = new ResumableImageUpload(apiService, authorization, job.id,
+                new File(job.imagePath), partSize, job.imageOffset);
+        ResumableImageUpload.Status status = upload.upload(progressListener);
+        synchronized (jobsLock) {
+            job.imageOffset = upload.getOffset();
+        }
+
+        switch (status) {
+            case UNSUPPORTED:
+                return null;
+            case RETRY:
+                return Attempt.retry(upload.getError());
+            case FAILED:
+                return Attempt.failed("Failed to upload the recipe image. " + upload.getError());
+            default:
+                break;
+        }
+
+        Map<String, RequestBody> parts = textParts(job);
+        parts.put("imageUploadId", textPart(job.id));
+        parts.put("imageName", textPart(job.imageName));
+        parts.put("imageType", textPart(job.imageType));
+        try {
+            Response<ModelResponse.RecipeDetailResponse> response = apiService
+                    .addRecipeWithParts(authorization, parts, null)
+                    .execute();
+            if (response.isSuccessful()) {
+                return Attempt.uploaded();
+            } else if (response.code() == 404) {
+                // The server let go of the upload, so the image is sent again from the start
+                synchronized (jobsLock) {
+                    job.imageOffset = 0;
+                }
+                return Attempt.retry("The uploaded image expired");
+            } else if (isNotHandled(response.code()) || response.code() >= 500) {
+                return Attempt.retry("Status code: " + response.code());
+            }
+            return Attempt.failed("Failed to add recipe. Status code: " + response.code());
+        } catch (IOException | RuntimeException e) {
+            return Attempt.retry(e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the job with the whole image in the add-recipe request. Adding a recipe is a
+     * plain POST, so sending a request the server may have received publishes the recipe
+     * twice. A failed attempt is only retried when the server answered that it did not
+     * handle the request, or when the connection dropped before the whole image was
+     * written. The image is the last part, so after it only the closing boundary is left
+     * to send.
+     */
+    static Attempt sendWhole(ApiService apiService, UploadJob job, ProgressRequestBody.ProgressListener progressListener) {
+        File image = new File(job.imagePath);
+        long imageBytes = image.length();
+
+        Map<String, RequestBody> parts = textParts(job);
+
+        // OkHttp writes the body again when it retries a connection itself, so keep the furthest any pass got
+        AtomicLong mostBytesSent = new AtomicLong();
+        RequestBody imageBody = new ProgressRequestBody(
+                RequestBody.create(MediaType.parse(job.imageType), image),
+                (bytesSent, totalBytes) -> {
+                    mostBytesSent.accumulateAndGet(bytesSent, Math::max);
+                    progressListener.onProgress(bytesSent, totalBytes);
+                });
+        MultipartBody.Part imagePart = MultipartBody.Part.createFormData("imageRecipe", job.imageName, imageBody);
+
+        try {
+            Response<ModelResponse.RecipeDetailResponse> response = apiService
+                    .addRecipeWithParts("Bearer " + job.token, parts, imagePart)
+                    .execute();
+            if (response.isSuccessful()) {
+                return Attempt.uploaded();
+            } else if (isNotHandled(response.code())) {
+                return Attempt.retry("Status code: " + response.code());
+            } else if (response.code() >= 500) {
+                // A 500, or a gateway giving up on the server, can come after the recipe was saved
+                Log.w(TAG, "Server error " + response.code() + " after '" + job.title + "' was sent");
+                return Attempt.failed("Server error after the recipe was sent (status code: "
+                        + response.code() + "). Check your recipes before adding it again");
+            }
+            return Attempt.failed("Failed to add recipe. Status code: " + response.code());
+        } catch (IOException | RuntimeException e) {
+            if (mostBytesSent.get() < imageBytes) {
+                return Attempt.retry(e.getMessage());
+            }
+            Log.w(TAG, "Connection lost after '" + job.title + "' was sent: " + e.getMessage());
+            return Attempt.failed("Connection lost after the recipe was sent. "
+                    + "Check your recipes before adding it again");
+        }
+    }
+
+    /**
+     * Status codes that say the request was turned away before the recipe was created
+     */
+    private static boolean isNotHandled(int code) {
+        return code == 408 || code == 429 || code == 503;
+    }
+
+    private static void retry(Context context, UploadJob job, String reason) {
+        synchronized (jobsLock) {
+            job.attempts++;
+        }
+        if (job.attempts >= MAX_ATTEMPTS) {
+            finish(context, job);
+            notifyFailed(context, job, "Failed to add recipe: " + reason);
+            return;
+        }
+
+        // Doubles with every attempt, plus up to half of that again so retries spread out
+        long delayMs = Math.min(MAX_RETRY_DELAY_MS, BASE_RETRY_DELAY_MS << (job.attempts - 1));
+        delayMs += (long) (random.nextDouble() * delayMs / 2);
+        synchronized (jobsLock) {
+            job.nextAttemptAt = System.currentTimeMillis() + delayMs;
+            saveJobs(context);
+        }
+        Log.w(TAG, "Upload of '" + job.title + "' failed (" + reason + "), retrying in " + delayMs / 1000 + " s");
+
+        notify(context, job, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle("Waiting to publish recipe")
+                .setContentText(job.title)
+                .setOngoing(true));
+        schedule(context, job, delayMs);
+    }
+
+    /**
+     * Removes a job that will not be attempted again
+     */
+    private static void finish(Context context, UploadJob job) {
+        synchronized (jobsLock) {
+            loadJobs(context).remove(job);
+            saveJobs(context);
+        }
+        new File(job.imagePath).delete();
+    }
+
+    private static boolean isQueued(Context context, UploadJob job) {
+        synchronized (jobsLock) {
+            return loadJobs(context).contains(job);
+        }
+    }
+
+    /**
+     * Stores a private copy of the image the job uploads, as it is
+     */
+    private static void copyImage(Context context, UploadJob job, Uri imageUri) throws IOException {
+        ContentResolver contentResolver = context.getContentResolver();
+        String type = contentResolver.getType(imageUri);
+        job.imageType = type != null ? type : DEFAULT_IMAGE_TYPE;
+        String name = UriRequestBody.getDisplayName(contentResolver, imageUri);
+        job.imageName = name != null ? name : job.id + ".jpg";
+
+        File directory = new File(context.getFilesDir(), IMAGE_DIR);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File image = new File(directory, job.id);
+        job.imagePath = image.getAbsolutePath();
+
+        try (InputStream input = contentResolver.openInputStream(imageUri);
+             OutputStream output = new FileOutputStream(image)) {
+            if (input == null) {
+                throw new FileNotFoundException("Cannot open " + imageUri);
+            }
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                output.write(buffer, 0, bytesRead);
+            }
+        } catch (IOException e) {
+            image.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Call with jobsLock held
+     */
+    private static List<UploadJob> loadJobs(Context context) {
+        if (jobs != null) {
+            return jobs;
+        }
+
+        jobs = new ArrayList<>();
+        AtomicFile store = new AtomicFile(new File(context.getFilesDir(), STORE_FILENAME));
+        try (Reader reader = new InputStreamReader(store.openRead(), StandardCharsets.UTF_8)) {
+            List<UploadJob> stored = ApiGson.get().fromJson(reader, JOB_LIST_TYPE);
+            if (stored != null) {
+                jobs.addAll(stored);
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing was queued yet
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "Error reading upload queue: " + e.getMessage());
+        }
+        return jobs;
+    }
+
+    /**
+     * Call with jobsLock held
+     */
+    private static void saveJobs(Context context) {
+        AtomicFile store = new AtomicFile(new File(context.getFilesDir(), STORE_FILENAME));
+        FileOutputStream output = null;
+        try {
+            output = store.startWrite();
+            output.write(ApiGson.get().toJson(jobs, JOB_LIST_TYPE).getBytes(StandardCharsets.UTF_8));
+            store.finishWrite(output);
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving upload queue: " + e.getMessage());
+            if (output != null) {
+                store.failWrite(output);
+            }
+        }
+    }
+
+    private static Map<String, RequestBody> textParts(UploadJob job) {
+        Map<String, RequestBody> parts = new HashMap<>();
+        parts.put("title", textPart(job.title));
+        parts.put("time", textPart(job.time));
+        parts.put("ingredients", textPart(ApiGson.get().toJson(job.ingredients)));
+        parts.put("instructions", textPart(ApiGson.get().toJson(job.instructions)));
+        return parts;
+    }
+
+    private static RequestBody textPart(String value) {
+        return RequestBody.create(MediaType.parse("text/plain"), value != null ? value : "");
+    }
+
+    private static void reportProgress(Context context, UploadJob job, long bytesSent, long totalBytes) {
+        int percent = totalBytes > 0 ? (int) (bytesSent * 100 / totalBytes) : -1;
+        if (percent == job.reportedPercent) {
+            return;
+        }
+
+        job.reportedPercent = percent;
+        showProgress(context, job, percent);
+    }
+
+    private static void notifyUploaded(Context context, UploadJob job) {
+        notify(context, job, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle("Recipe published")
+                .setContentText(job.title)
+                .setAutoCancel(true));
+    }
+
+    private static void notifyFailed(Context context, UploadJob job, String errorMessage) {
+        notify(context, job, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle("Could not publish " + job.title)
+                .setContentText(errorMessage)
+                .setAutoCancel(true));
+    }
+
+    /**
+     * @param percent Share of the image sent, -1 if the size is unknown
+     */
+    private static void showProgress(Context context, UploadJob job, int percent) {
+        notify(context, job, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle("Publishing recipe")
+                .setContentText(job.title)
+                .setProgress(100, Math.max(percent, 0), percent < 0)
+                .setOnlyAlertOnce(true)
+                .setOngoing(true));
+    }
+
+    private static void notify(Context context, UploadJob job, NotificationCompat.Builder builder) {
+        createNotificationChannel(context);
+        builder.setSmallIcon(R.drawable.ic_notification)
+                .setPriority(NotificationCompat.PRIORITY_LOW);
+        try {
+            NotificationManagerCompat.from(context).notify(job.id.hashCode(), builder.build());
+        } catch (SecurityException e) {
+            Log.e(TAG, "Notification permission missing", e);
+        }
+    }
+
+    private static void createNotificationChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Recipe uploads",
+                    NotificationManager.IMPORTANCE_LOW);
+            channel.setDescription("Progress of recipes being published");
+
+            NotificationManager notificationManager = (NotificationManager)
+                    context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (notificationManager != null) {
+                notificationManager.createNotificationChannel(channel);
+            }
+        }
+    }
+}
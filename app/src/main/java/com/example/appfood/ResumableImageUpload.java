@@ -0,0 +1,190 @@
+package com.example.appfood;
+
+import java.io.File;
+import java.io.IOException;
+
+import api.ApiService;
+import api.ProgressRequestBody;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import retrofit2.Response;
+
+/**
+ * Sends the image of a queued recipe in fixed-size parts that the server acknowledges one
+ * by one, so a dropped connection costs at most the part in flight instead of the whole
+ * image. The protocol, for an upload id chosen by the client:
+ *
+ * - HEAD recipes/add-recipe/uploads/{id} answers with the Upload-Offset the server holds,
+ *   or 404 when it holds nothing
+ * - PUT recipes/add-recipe/uploads/{id} with Upload-Offset, Upload-Length and the bytes
+ *   from that offset. The server keeps a part only once all of it arrived and only when
+ *   the offset is the one it holds, then answers 204 with the new Upload-Offset. A
+ *   mismatching offset gets 409 with the Upload-Offset it holds
+ * - addRecipeWithParts then names the upload in an imageUploadId part instead of sending
+ *   the image. The server creates at most one recipe per upload id
+ *
+ * A server without the upload endpoints answers the PUT with 404, 405 or 501, which is
+ * reported as UNSUPPORTED so the caller can send the whole image instead.
+ */
+class ResumableImageUpload {
+    static final int PART_SIZE = 256 * 1024;
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private static final MediaType PART_TYPE = MediaType.parse("application/offset+octet-stream");
+    // Conflicts in a row before giving up on this attempt, the next one starts with a HEAD
+    private static final int MAX_CONFLICTS = 3;
+
+    enum Status {
+        // The server holds the whole image
+        COMPLETE,
+        // Worth another attempt later, from getOffset()
+        RETRY,
+        // The server refused the upload
+        FAILED,
+        // The server has no upload endpoints
+        UNSUPPORTED
+    }
+
+    private final ApiService apiService;
+    private final String authorization;
+    private final String uploadId;
+    private final File image;
+    private final int partSize;
+
+    private long offset;
+    private String error;
+
+    /**
+     * @param offset Bytes an earlier attempt got acknowledged, checked with the server before
+     *               sending more
+     */
+    ResumableImageUpload(ApiService apiService, String authorization, String uploadId, File image,
+                         int partSize, long offset) {
+        this.apiService = apiService;
+        this.authorization = authorization;
+        this.uploadId = uploadId;
+        this.image = image;
+        this.partSize = partSize;
+        this.offset = offset;
+    }
+
+    /**
+     * Sends the parts the server does not hold yet
+     * @param progressListener Told the bytes of the whole image the server holds or is being sent
+     */
+    Status upload(ProgressRequestBody.ProgressListener progressListener) {
+        long length = image.length();
+        try {
+            if (offset > 0) {
+                Response<Void> response = apiService.getRecipeImageUpload(authorization, uploadId).execute();
+                if (response.code() == 404) {
+                    offset = 0;
+                } else if (!response.isSuccessful()) {
+                    return failedWith(response.code());
+                } else {
+                    long held = readOffset(response);
+                    // Anything the server holds that does not fit this image is sent again
+                    offset = held >= 0 && held <= length ? held : 0;
+                }
+            }
+
+            int conflicts = 0;
+            while (offset < length) {
+                long partOffset = offset;
+                int size = (int) Math.min(partSize, length - partOffset);
+                RequestBody part = new ProgressRequestBody(filePart(image, partOffset, size),
+                        (bytesWritten, partBytes) -> progressListener.onProgress(partOffset + bytesWritten, length));
+                Response<Void> response = apiService
+                        .putRecipeImagePart(authorization, uploadId, partOffset, length, part)
+                        .execute();
+
+                if (response.isSuccessful()) {
+                    long acknowledged = readOffset(response);
+                    if (acknowledged <= partOffset || acknowledged > length) {
+                        error = "Unexpected upload offset " + acknowledged + " after " + partOffset;
+                        return Status.RETRY;
+                    }
+                    offset = acknowledged;
+                    conflicts = 0;
+                } else if (response.code() == 409) {
+                    long held = readOffset(response);
+                    if (held < 0 || held > length || ++conflicts > MAX_CONFLICTS) {
+                        error = "Upload offset conflict at " + partOffset;
+                        return Status.RETRY;
+                    }
+                    offset = held;
+                } else if (response.code() == 404 || response.code() == 405 || response.code() == 501) {
+                    error = "Status code: " + response.code();
+                    return Status.UNSUPPORTED;
+                } else {
+                    return failedWith(response.code());
+                }
+            }
+            return Status.COMPLETE;
+        } catch (IOException | RuntimeException e) {
+            // The part in flight is dropped by the server, the acknowledged ones stay
+            error = e.getMessage();
+            return Status.RETRY;
+        }
+    }
+
+    /**
+     * Bytes of the image the server acknowledged
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    private Status failedWith(int code) {
+        error = "Status code: " + code;
+        // Parts are addressed by offset, so sending one again cannot store it twice
+        return code == 408 || code == 429 || code >= 500 ? Status.RETRY : Status.FAILED;
+    }
+
+    /**
+     * @return The Upload-Offset header, -1 if it is missing or not a number
+     */
+    private static long readOffset(Response<?> response) {
+        String value = response.headers().get(UPLOAD_OFFSET);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Body with size bytes of the file from offset on, read again each time it is written
+     */
+    private static RequestBody filePart(File file, long offset, int size) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return PART_TYPE;
+            }
+
+            @Override
+            public long contentLength() {
+                return size;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+                    source.skip(offset);
+                    sink.write(source, size);
+                }
+            }
+        };
+    }
+}
@@ -33,6 +33,9 @@ public class SignInActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
+        // Enable the HTTP cache before any request is made
+        RetrofitClient.init(this);
+
         // Initialize views
         initViews();
 
@@ -140,36 +143,20 @@ public class SignInActivity extends AppCompatActivity {
     }
 
     private void fetchAndCacheRecipes(String token) {
-        String authToken = "Bearer " + token;
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.RecipeResponse> call = apiService.getAllRecipes(authToken);
-
-        call.enqueue(new Callback<ModelResponse.RecipeResponse>() {
+        RecipeSync.sync(this, "Bearer " + token, new RecipeSync.SyncCallback() {
             @Override
-            public void onResponse(Call<ModelResponse.RecipeResponse> call, Response<ModelResponse.RecipeResponse> response) {
+            public void onSynced(int changedCount) {
                 // Reset loading state since we're done with API calls
                 setLoadingState(false);
-
-                if (response.isSuccessful() && response.body() != null) {
-                    ModelResponse.RecipeResponse recipeResponse = response.body();
-                    if (recipeResponse.getData() != null && recipeResponse.getData().getRecipes() != null) {
-                        // Cache the recipes
-                        RecipeCache.saveRecipesToCache(SignInActivity.this, recipeResponse.getData().getRecipes());
-                        Log.d(TAG, "Recipes cached successfully");
-                    } else {
-                        Log.d(TAG, "No recipes to cache");
-                    }
-                } else {
-                    Log.e(TAG, "Failed to fetch recipes");
-                }
+                Log.d(TAG, "Recipes cached successfully");
             }
 
             @Override
-            public void onFailure(Call<ModelResponse.RecipeResponse> call, Throwable t) {
+            public void onError(String errorMessage) {
                 // We still proceed with login even if recipe caching fails
                 setLoadingState(false);
-                Log.e(TAG, "Error fetching recipes: " + t.getMessage());
+                Log.e(TAG, "Error fetching recipes: " + errorMessage);
             }
         });
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,8 @@ package com.example.appfood;
 
 import android.Manifest;
 import android.app.DatePickerDialog;
-import android.content.ContentResolver;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -33,10 +31,6 @@ import androidx.core.content.ContextCompat;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
@@ -47,10 +41,10 @@ import adapter.CountryAdapter;
 import api.ApiService;
 import api.ModelResponse;
 import api.RetrofitClient;
+import api.UriRequestBody;
+import api.UserRepository;
 import fragment.LogoutDialogFragment;
-import okhttp3.MediaType;
 import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -77,6 +71,7 @@ public class UserProfileActivity extends AppCompatActivity {
     // State variables
     private String country;
     private String currentAvatarUrl;
+    private String currentUserId;
     private boolean isDataLoading = false;
     private String token;
     private TextView tvDeleteAccount;
@@ -328,6 +323,11 @@ public class UserProfileActivity extends AppCompatActivity {
                         response.body().getData().getUser() != null) {
 
                     ModelResponse.UserResponse.User user = response.body().getData().getUser();
+
+                    // Keep author lookups elsewhere in the app in sync with our own profile
+                    currentUserId = user.getId();
+                    UserRepository.getInstance().put(user);
+
                     callback.onSuccess(
                             user.getName(),
                             user.getEmail(),
@@ -357,6 +357,8 @@ public class UserProfileActivity extends AppCompatActivity {
                     public void onResponse(Call<ModelResponse.UpdateUserResponse> call,
                                            Response<ModelResponse.UpdateUserResponse> response) {
                         if (response.isSuccessful() && response.body() != null) {
+                            FreshnessPolicy.signalChanged(FreshnessPolicy.Section.USER_PROFILE);
+                            UserRepository.getInstance().invalidate(currentUserId);
                             Toast.makeText(UserProfileActivity.this,
                                     "Profile updated successfully",
                                     Toast.LENGTH_SHORT).show();
@@ -440,80 +442,12 @@ public class UserProfileActivity extends AppCompatActivity {
     }
 
     /**
-     * Converts Uri to File - similar to HomeFragment's method
-     */
-    private File getFileFromUri(Uri uri) {
-        try {
-            ContentResolver contentResolver = getContentResolver();
-            String fileName = getFileNameFromUri(contentResolver, uri);
-
-            // Create temporary file
-            File outputDir = getCacheDir();
-            File outputFile = File.createTempFile("profile_", ".jpg", outputDir);
-
-            // Copy data to file
-            InputStream inputStream = contentResolver.openInputStream(uri);
-            FileOutputStream outputStream = new FileOutputStream(outputFile);
-
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-
-            outputStream.close();
-            inputStream.close();
-
-            return outputFile;
-        } catch (Exception e) {
-            Log.e(TAG, "Error getting file from uri: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Gets filename from Uri
-     */
-    private String getFileNameFromUri(ContentResolver contentResolver, Uri uri) {
-        String result = null;
-        if (uri.getScheme().equals("content")) {
-            Cursor cursor = contentResolver.query(uri, null, null, null, null);
-            try {
-                if (cursor != null && cursor.moveToFirst()) {
-                    int nameIndex = cursor.getColumnIndex(android.provider.OpenableColumns.DISPLAY_NAME);
-                    if (nameIndex >= 0) {
-                        result = cursor.getString(nameIndex);
-                    }
-                }
-            } finally {
-                if (cursor != null) {
-                    cursor.close();
-                }
-            }
-        }
-        if (result == null) {
-            result = uri.getLastPathSegment();
-        }
-        return result;
-    }
-
-    /**
-     * Improved method to upload profile picture using ContentResolver and temp files
+     * Uploads the profile picture, streamed from the picked Uri without a temporary copy
      */
     private void uploadProfilePicture(Uri imageUri, String token) {
         try {
-            // Get file from Uri using the same approach as HomeFragment
-            File imageFile = getFileFromUri(imageUri);
-            if (imageFile == null) {
-                Toast.makeText(this, "Failed to process image", Toast.LENGTH_SHORT).show();
-                showLoading(false);
-                return;
-            }
-
             // Create multipart request
-            RequestBody requestFile = RequestBody.create(MediaType.parse("image/*"), imageFile);
-            MultipartBody.Part avatarPart = MultipartBody.Part.createFormData(
-                    "avatar", imageFile.getName(), requestFile);
+            MultipartBody.Part avatarPart = UriRequestBody.createImagePart(this, "avatar", imageUri);
 
             // Call API
             ApiService apiService = RetrofitClient.getApiService();
@@ -541,6 +475,8 @@ public class UserProfileActivity extends AppCompatActivity {
      */
     private void handleAvatarUploadResponse(Response<ModelResponse.UserResponse> response) {
         if (response.isSuccessful() && response.body() != null) {
+            FreshnessPolicy.signalChanged(FreshnessPolicy.Section.USER_PROFILE);
+            UserRepository.getInstance().invalidate(currentUserId);
             Toast.makeText(UserProfileActivity.this, "Profile picture updated!", Toast.LENGTH_SHORT).show();
             // Reload entire user data after successful avatar update
             loadUserData();
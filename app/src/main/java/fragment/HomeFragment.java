@@ -5,7 +5,8 @@
     import android.content.Context;
     import android.content.Intent;
     import android.os.Bundle;
-    import android.provider.OpenableColumns;
+    import android.os.Handler;
+    import android.os.Looper;
     import android.text.Editable;
     import android.text.TextWatcher;
     import android.util.Log;
@@ -32,18 +33,28 @@
     import com.bumptech.glide.request.RequestOptions;
     import com.example.appfood.AddRecipeActivity;
     import com.example.appfood.ChatBotActivity;
+    import com.example.appfood.FreshnessPolicy;
+    import com.example.appfood.FreshnessPolicy.Section;
+    import com.example.appfood.ImagePreparer;
+    import com.example.appfood.ImageSearchCache;
     import com.example.appfood.ImageSearchResultsActivity;
     import com.example.appfood.MainActivity;
     import com.example.appfood.MainRecipe;
     import com.example.appfood.R;
     import com.example.appfood.UserProfileActivity;
     import com.example.appfood.RecipeCache;
+    import com.example.appfood.RecipeFilter;
+    import com.example.appfood.RecipeLists;
+    import com.example.appfood.RecipeSearchPipeline;
+    import com.example.appfood.RecipeSync;
     import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
     import java.util.ArrayList;
     import java.util.HashMap;
     import java.util.List;
     import java.util.Map;
+    import java.util.concurrent.ExecutorService;
+    import java.util.concurrent.Executors;
     import java.util.concurrent.atomic.AtomicInteger;
 
     import adapter.CommonRecipeAdapter;
@@ -51,6 +62,7 @@
     import adapter.SearchResultAdapter;
     import api.ApiService;
     import api.ModelResponse;
+    import api.RatingBatchLoader;
     import api.RetrofitClient;
     import retrofit2.Call;
     import retrofit2.Callback;
@@ -63,11 +75,7 @@
     import okhttp3.MediaType;
     import okhttp3.MultipartBody;
     import okhttp3.RequestBody;
-    import java.io.File;
-    import java.io.InputStream;
-    import android.database.Cursor;
-    import android.content.ContentResolver;
-    import java.io.FileOutputStream;
+    import java.io.IOException;
     import android.os.Environment;
     import java.util.ArrayList;
 
@@ -77,8 +85,9 @@
     public class HomeFragment extends Fragment {
 
         private ActivityResultLauncher<Intent> imagePickerLauncher;
-        // Add this field at the top of your HomeFragment class
-        private static final int MAX_IMAGE_SIZE = 1024 * 1024; // 1MB
+        // The image search model works on small images, larger uploads only cost time
+        private static final int SEARCH_IMAGE_MAX_DIMENSION = 512;
+        private static final int SEARCH_IMAGE_MAX_BYTES = 150 * 1024;
 
         private static final String TAG = "HomeFragment";
         private static final String BEARER_PREFIX = "Bearer ";
@@ -101,8 +110,13 @@
         private CommonRecipeAdapter commonRecipeAdapter;
         private NewRecipeAdapter newRecipeAdapter;
         private SearchResultAdapter searchResultAdapter;
+        private RecipeSearchPipeline searchPipeline;
         private String token;
         private Map<String, Boolean> savedRecipesMap = new HashMap<>();
+        private final FreshnessPolicy freshnessPolicy = new FreshnessPolicy();
+        // Image search preparation and recipe cache reads, kept off the main thread
+        private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
         // Loading state tracking
         private AtomicInteger pendingLoads = new AtomicInteger(0);
@@ -255,96 +269,57 @@
         }
 
         /**
-         * Processes the selected image and calls the API
+         * Shrinks the selected image on a background thread, then shows the stored result
+         * of an earlier search for a near-identical image or calls the API
          */
         private void processSelectedImage(Uri imageUri) {
             showLoading();
 
-            try {
-                // Get the file from the URI
-                File imageFile = getFileFromUri(imageUri);
-                if (imageFile == null) {
-                    Toast.makeText(requireContext(), "Failed to process image", Toast.LENGTH_SHORT).show();
-                    hideLoading();
-                    return;
-                }
-
-                // Create multipart request
-                RequestBody requestFile = RequestBody.create(MediaType.parse("image/*"), imageFile);
-                MultipartBody.Part imagePart = MultipartBody.Part.createFormData("image", imageFile.getName(), requestFile);
-
-                // Call API
-                callSearchImageApi(imagePart);
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error processing image: " + e.getMessage());
-                Toast.makeText(requireContext(), "Error processing image", Toast.LENGTH_SHORT).show();
-                hideLoading();
-            }
-        }
-
-        /**
-         * Converts Uri to File
-         */
-        private File getFileFromUri(Uri uri) {
-            try {
-                ContentResolver contentResolver = requireContext().getContentResolver();
-                String fileName = getFileNameFromUri(contentResolver, uri);
-
-                // Create temporary file
-                File outputDir = requireContext().getCacheDir();
-                File outputFile = File.createTempFile("image_", ".jpg", outputDir);
-
-                // Copy data to file
-                InputStream inputStream = contentResolver.openInputStream(uri);
-                FileOutputStream outputStream = new FileOutputStream(outputFile);
-
-                byte[] buffer = new byte[4096];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
+            Context context = requireContext().getApplicationContext();
+            backgroundExecutor.execute(() -> {
+                ImagePreparer.PreparedImage prepared;
+                try {
+                    prepared = ImagePreparer.prepareForUpload(context, imageUri,
+                            SEARCH_IMAGE_MAX_DIMENSION, SEARCH_IMAGE_MAX_BYTES);
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "Error processing image: " + e.getMessage());
+                    prepared = null;
                 }
 
-                outputStream.close();
-                inputStream.close();
-
-                return outputFile;
-            } catch (Exception e) {
-                Log.e(TAG, "Error getting file from uri: " + e.getMessage());
-                return null;
-            }
-        }
-
-        /**
-         * Gets filename from Uri
-         */
-        private String getFileNameFromUri(ContentResolver contentResolver, Uri uri) {
-            String result = null;
-            if (uri.getScheme().equals("content")) {
-                Cursor cursor = contentResolver.query(uri, null, null, null, null);
-                try {
-                    if (cursor != null && cursor.moveToFirst()) {
-                        int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
-                        if (nameIndex >= 0) {
-                            result = cursor.getString(nameIndex);
-                        }
+                ImagePreparer.PreparedImage image = prepared;
+                ModelResponse.searchImageResponse cached =
+                        image != null ? ImageSearchCache.find(context, image.getPerceptualHash()) : null;
+                mainHandler.post(() -> {
+                    if (!isAdded()) {
+                        return;
                     }
-                } finally {
-                    if (cursor != null) {
-                        cursor.close();
+                    if (image == null) {
+                        Toast.makeText(requireContext(), "Failed to process image", Toast.LENGTH_SHORT).show();
+                        hideLoading();
+                        return;
                     }
-                }
-            }
-            if (result == null) {
-                result = uri.getLastPathSegment();
-            }
-            return result;
+                    if (cached != null) {
+                        hideLoading();
+                        processSearchImageResponse(cached);
+                        return;
+                    }
+
+                    // Create multipart request, the image is small enough to be sent from memory
+                    RequestBody requestImage = RequestBody.create(MediaType.parse("image/jpeg"), image.getJpeg());
+                    MultipartBody.Part imagePart =
+                            MultipartBody.Part.createFormData("image", "search.jpg", requestImage);
+
+                    // Call API
+                    callSearchImageApi(imagePart, image.getPerceptualHash());
+                });
+            });
         }
 
         /**
          * Calls the search image API
+         * @param imageHash Perceptual hash of the image, a successful result is stored under it
          */
-        private void callSearchImageApi(MultipartBody.Part imagePart) {
+        private void callSearchImageApi(MultipartBody.Part imagePart, long imageHash) {
             ApiService apiService = RetrofitClient.getApiService();
             Call<ModelResponse.searchImageResponse> call = apiService.searchImage(BEARER_PREFIX + token, imagePart);
 
@@ -355,7 +330,12 @@
                     hideLoading();
 
                     if (response.isSuccessful() && response.body() != null) {
-                        processSearchImageResponse(response.body());
+                        ModelResponse.searchImageResponse body = response.body();
+                        if (body.isSuccess() && body.getData() != null && !backgroundExecutor.isShutdown()) {
+                            Context context = requireContext().getApplicationContext();
+                            backgroundExecutor.execute(() -> ImageSearchCache.put(context, imageHash, body));
+                        }
+                        processSearchImageResponse(body);
                     } else {
                         Toast.makeText(requireContext(), "Failed to search with image", Toast.LENGTH_SHORT).show();
                         Log.e(TAG, "API error: " + response.code());
@@ -460,6 +440,13 @@
                 rvSearchResults.setAdapter(searchResultAdapter);
             }
 
+            // Searches run debounced on a background thread, results arrive on the main thread
+            searchPipeline = new RecipeSearchPipeline(requireContext(), (query, results) -> {
+                if (isAdded() && isSearchQueryCurrent(query)) {
+                    displaySearchResults(query, results);
+                }
+            });
+
             // Set up search action listener (when user presses search button on keyboard)
             etSearch.setOnEditorActionListener((v, actionId, event) -> {
                 if (actionId == EditorInfo.IME_ACTION_SEARCH ||
@@ -482,10 +469,13 @@
                 public void onTextChanged(CharSequence s, int start, int before, int count) {
                     // Handle search as user types
                     if (s.length() >= 2) { // Only search if 2 or more characters
-                        performSearch(s.toString());
-                    } else if (s.length() == 0) {
-                        // Hide search results when search box is cleared
-                        hideSearchResults();
+                        searchPipeline.submit(s.toString());
+                    } else {
+                        searchPipeline.cancel();
+                        if (s.length() == 0) {
+                            // Hide search results when search box is cleared
+                            hideSearchResults();
+                        }
                     }
                 }
 
@@ -556,13 +546,25 @@
          */
         private void performSearch(String query) {
             if (query == null || query.trim().isEmpty()) {
+                searchPipeline.cancel();
                 hideSearchResults();
                 return;
             }
 
-            List<ModelResponse.RecipeResponse.Recipe> results =
-                    RecipeCache.searchRecipesByTitle(requireContext(), query);
+            searchPipeline.searchNow(query);
+        }
+
+        /**
+         * Checks if results belong to what is currently in the search box
+         */
+        private boolean isSearchQueryCurrent(String query) {
+            return etSearch != null && etSearch.getText().toString().equals(query);
+        }
 
+        /**
+         * Shows the results of a finished search
+         */
+        private void displaySearchResults(String query, List<ModelResponse.RecipeResponse.Recipe> results) {
             if (results.isEmpty()) {
                 // Show "no results" message
                 if (tvNoResults != null) {
@@ -576,9 +578,8 @@
                     tvNoResults.setVisibility(View.GONE);
                     rvSearchResults.setVisibility(View.VISIBLE);
                 }
-                searchResultsList.clear();
-                searchResultsList.addAll(results);
-                searchResultAdapter.notifyDataSetChanged();
+                searchResultsList = results;
+                searchResultAdapter.updateSearchResults(results);
                 showSearchResults();
 
                 Log.d(TAG, "Found " + results.size() + " recipes matching '" + query + "'");
@@ -652,6 +653,7 @@
                             }
                         }
 
+                        freshnessPolicy.markFresh(Section.SAVED_RECIPES);
                         Log.d(TAG, "Loaded " + (savedRecipes != null ? savedRecipes.size() : 0) + " saved recipes");
                     } else {
                         Log.e(TAG, "Error loading saved recipes: " + response.code());
@@ -685,6 +687,7 @@
                             tvGreeting.setText("Hello, " + name + "!");
                             loadProfileImage(avatarUrl);
                         }
+                        freshnessPolicy.markFresh(Section.USER_PROFILE);
                         completeLoad();
                     }
 
@@ -794,22 +797,51 @@
                 public void onResponse(@NonNull Call<ModelResponse.RecipeResponse> call,
                                        @NonNull Response<ModelResponse.RecipeResponse> response) {
                     if (isSuccessfulRecipeResponse(response)) {
-                        processCommonRecipes(apiService, response.body().getData().getRecipes());
+                        processCommonRecipes(response.body().getData().getRecipes());
+                        freshnessPolicy.markFresh(Section.COMMON_RECIPES);
+                        completeLoad();
                     } else {
-                        handleRecipeLoadError("common recipes");
+                        showCachedCommonRecipes();
                     }
-                    completeLoad();
                 }
 
                 @Override
                 public void onFailure(@NonNull Call<ModelResponse.RecipeResponse> call, @NonNull Throwable t) {
                     Log.e(TAG, "API Call Failed (Common): " + t.getMessage());
-                    handleRecipeLoadError("common recipes");
-                    completeLoad();
+                    showCachedCommonRecipes();
                 }
             });
         }
 
+        /**
+         * Shows the best rated cached recipes when the common recipes cannot be loaded, or
+         * reports the error if there are none. The cache is queried on the background
+         * executor and the load completes once the result is shown
+         */
+        private void showCachedCommonRecipes() {
+            if (!isAdded() || backgroundExecutor.isShutdown()) {
+                completeLoad();
+                return;
+            }
+
+            Context context = requireContext().getApplicationContext();
+            backgroundExecutor.execute(() -> {
+                List<ModelResponse.RecipeResponse.Recipe> cachedRecipes = RecipeCache.filterRecipes(context,
+                        new RecipeFilter().sortBy(RecipeFilter.Sort.TOP_RATED), MAX_RECIPES_TO_DISPLAY);
+                mainHandler.post(() -> {
+                    if (isAdded()) {
+                        if (cachedRecipes == null || cachedRecipes.isEmpty()) {
+                            handleRecipeLoadError("common recipes");
+                        } else {
+                            Log.d(TAG, "Showing " + cachedRecipes.size() + " cached recipes as common recipes");
+                            processCommonRecipes(cachedRecipes);
+                        }
+                    }
+                    completeLoad();
+                });
+            });
+        }
+
         /**
          * Loads new recipes from API
          */
@@ -824,7 +856,8 @@
                 public void onResponse(@NonNull Call<ModelResponse.RecipeResponse> call,
                                        @NonNull Response<ModelResponse.RecipeResponse> response) {
                     if (isSuccessfulRecipeResponse(response)) {
-                        processNewRecipes(apiService, response.body().getData().getRecipes());
+                        processNewRecipes(response.body().getData().getRecipes());
+                        freshnessPolicy.markFresh(Section.NEW_RECIPES);
                     } else {
                         handleRecipeLoadError("new recipes");
                     }
@@ -846,27 +879,18 @@
         private void loadAllRecipes() {
             registerPendingLoad();
 
-            ApiService apiService = RetrofitClient.getApiService();
-            Call<ModelResponse.RecipeResponse> call = apiService.getAllRecipes(BEARER_PREFIX + token);
-
-            call.enqueue(new Callback<ModelResponse.RecipeResponse>() {
+            // Only recipes changed since the last sync are downloaded and merged into the cache
+            RecipeSync.sync(requireContext(), BEARER_PREFIX + token, new RecipeSync.SyncCallback() {
                 @Override
-                public void onResponse(@NonNull Call<ModelResponse.RecipeResponse> call,
-                                       @NonNull Response<ModelResponse.RecipeResponse> response) {
-                    if (isSuccessfulRecipeResponse(response)) {
-                        // Save recipes to cache for search functionality
-                        List<ModelResponse.RecipeResponse.Recipe> allRecipes = response.body().getData().getRecipes();
-                        RecipeCache.saveRecipesToCache(requireContext(), allRecipes);
-                        Log.d(TAG, "Cached " + allRecipes.size() + " recipes for search functionality");
-                    } else {
-                        Log.e(TAG, "Failed to load all recipes for caching");
-                    }
+                public void onSynced(int changedCount) {
+                    freshnessPolicy.markFresh(Section.ALL_RECIPES);
+                    Log.d(TAG, "Recipe cache synced, " + changedCount + " changes");
                     completeLoad();
                 }
 
                 @Override
-                public void onFailure(@NonNull Call<ModelResponse.RecipeResponse> call, @NonNull Throwable t) {
-                    Log.e(TAG, "API Call Failed (All Recipes): " + t.getMessage());
+                public void onError(String errorMessage) {
+                    Log.e(TAG, "Failed to sync recipe cache: " + errorMessage);
                     completeLoad();
                 }
             });
@@ -896,14 +920,14 @@
         /**
          * Processes retrieved common recipes
          */
-        private void processCommonRecipes(ApiService apiService, List<ModelResponse.RecipeResponse.Recipe> recipes) {
+        private void processCommonRecipes(List<ModelResponse.RecipeResponse.Recipe> recipes) {
             commonRecipeList.clear();
             List<ModelResponse.RecipeResponse.Recipe> displayRecipes =
                     recipes.subList(0, Math.min(recipes.size(), MAX_RECIPES_TO_DISPLAY));
             commonRecipeList.addAll(displayRecipes);
 
             // Fetch ratings for each recipe
-            fetchRatingsForRecipes(apiService, commonRecipeList);
+            fetchRatingsForRecipes(commonRecipeList);
 
             // Update RecyclerView
             commonRecipeAdapter.notifyDataSetChanged();
@@ -922,14 +946,14 @@
         /**
          * Processes retrieved new recipes
          */
-        private void processNewRecipes(ApiService apiService, List<ModelResponse.RecipeResponse.Recipe> recipes) {
+        private void processNewRecipes(List<ModelResponse.RecipeResponse.Recipe> recipes) {
             newRecipeList.clear();
             List<ModelResponse.RecipeResponse.Recipe> displayRecipes =
                     recipes.subList(0, Math.min(recipes.size(), MAX_RECIPES_TO_DISPLAY));
             newRecipeList.addAll(displayRecipes);
 
             // Fetch ratings for each recipe
-            fetchRatingsForRecipes(apiService, newRecipeList);
+            fetchRatingsForRecipes(newRecipeList);
 
             // Update RecyclerView
             newRecipeAdapter.notifyDataSetChanged();
@@ -948,60 +972,45 @@
         /**
          * Fetches detailed ratings for recipes using the new Rating API
          */
-        private void fetchRatingsForRecipes(ApiService apiService, List<ModelResponse.RecipeResponse.Recipe> recipes) {
+        private void fetchRatingsForRecipes(List<ModelResponse.RecipeResponse.Recipe> recipes) {
             int recipeCount = recipes.size();
             if (recipeCount > 0) {
                 registerPendingLoad();
             }
 
             final AtomicInteger completedRatings = new AtomicInteger(0);
+            RatingBatchLoader ratingLoader = RatingBatchLoader.getInstance();
 
             for (ModelResponse.RecipeResponse.Recipe recipe : recipes) {
-                String recipeId = recipe.getId();
-                // Change the type to match the API service return type
-                Call<ModelResponse.getRatingResponse> ratingCall =
-                        apiService.getRecipeRating(BEARER_PREFIX + token, recipeId);
-
-                // Update the callback to use getRatingResponse instead of RatingResponse
-                ratingCall.enqueue(new Callback<ModelResponse.getRatingResponse>() {
+                ratingLoader.load(BEARER_PREFIX + token, recipe.getId(), new RatingBatchLoader.RatingCallback() {
                     @Override
-                    public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                           @NonNull Response<ModelResponse.getRatingResponse> response) {
-                        if (response.isSuccessful() && response.body() != null &&
-                                response.body().getData() != null &&
-                                isAdded()) {
-
-                            ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
-
+                    public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
+                        if (isAdded()) {
                             // Log the rating values for debugging
                             Log.d(TAG, "Recipe ID: " + recipeId +
                                     " - Average Rating: " + ratingData.getAverageRating() +
                                     " - Total Ratings: " + ratingData.getTotalRatings());
 
-                            // Update recipe with rating information
-                            recipe.setAverageRating(ratingData.getAverageRating());
-
-                            // If you need to handle user rating info as well, you can do it here
-                            if (ratingData.hasUserRated()) {
-                                // Store user's rating if needed
-                                // recipe.setUserRating(ratingData.getUserRating().getRating());
-                            }
+                            // Replace the recipe with a copy carrying the rating
+                            int position = RecipeLists.update(recipes, recipeId,
+                                    rated -> rated.withAverageRating(ratingData.getAverageRating()));
 
                             // Notify appropriate adapter
-                            notifyAdapterForRecipe(recipe);
-                        } else {
-                            Log.e(TAG, "Failed to get ratings for Recipe ID: " + recipeId);
+                            if (position >= 0) {
+                                notifyAdapterForRecipe(recipes.get(position));
+                            }
                         }
 
                         // Check if all ratings are completed
                         if (completedRatings.incrementAndGet() >= recipeCount) {
+                            freshnessPolicy.markFresh(Section.RATINGS);
                             completeLoad(); // Complete ratings batch load
                         }
                     }
 
                     @Override
-                    public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
-                        Log.e(TAG, "API Call Failed (Ratings) - Recipe ID: " + recipeId + ", Error: " + t.getMessage());
+                    public void onError(String recipeId, String errorMessage) {
+                        Log.e(TAG, "Failed to get ratings for Recipe ID: " + recipeId + ", Error: " + errorMessage);
 
                         // Check if all ratings are completed
                         if (completedRatings.incrementAndGet() >= recipeCount) {
@@ -1075,18 +1084,70 @@
             }
         }
 
+        @Override
+        public void onDestroyView() {
+            super.onDestroyView();
+            if (searchPipeline != null) {
+                searchPipeline.cancel();
+            }
+        }
+
+        @Override
+        public void onDestroy() {
+            super.onDestroy();
+            backgroundExecutor.shutdown();
+        }
+
         /**
-         * Refreshes all data
+         * Refreshes only the sections that are stale or were invalidated by another screen,
+         * everything else keeps rendering from memory
          */
         private void refreshData() {
-            showLoading();
+            if (!freshnessPolicy.isAnyStale(Section.values())) {
+                Log.d(TAG, "All sections fresh, skipping refresh");
+                return;
+            }
+
             pendingLoads.set(0); // Reset counter
 
-            // Refresh data in sequence
-            loadSavedRecipes(() -> {
-                loadRecipeData();
+            // Saved recipes still go first so adapters bind with the right bookmark state
+            if (freshnessPolicy.isStale(Section.SAVED_RECIPES)) {
+                loadSavedRecipes(this::refreshStaleSections);
+            } else {
+                refreshStaleSections();
+            }
+        }
+
+        /**
+         * Refetches every stale section except saved recipes
+         */
+        private void refreshStaleSections() {
+            boolean ratingsStale = freshnessPolicy.isStale(Section.RATINGS);
+
+            // Reloading a list fetches its ratings too, so ratings alone only refetch for fresh lists
+            if (freshnessPolicy.isStale(Section.COMMON_RECIPES)) {
+                loadCommonRecipes();
+            } else if (ratingsStale && !commonRecipeList.isEmpty()) {
+                fetchRatingsForRecipes(commonRecipeList);
+            } else {
+                commonRecipeAdapter.notifyDataSetChanged();
+            }
+
+            if (freshnessPolicy.isStale(Section.NEW_RECIPES)) {
+                loadNewRecipes();
+            } else if (ratingsStale && !newRecipeList.isEmpty()) {
+                fetchRatingsForRecipes(newRecipeList);
+            } else {
+                newRecipeAdapter.notifyDataSetChanged();
+            }
+
+            if (freshnessPolicy.isStale(Section.ALL_RECIPES) || !RecipeCache.isCacheAvailable(requireContext())) {
+                loadAllRecipes();
+            }
+
+            if (freshnessPolicy.isStale(Section.USER_PROFILE)) {
                 refreshUserProfile();
-            });
+            }
         }
 
         /**
@@ -1103,6 +1164,7 @@
                         tvGreeting.setText("Hello, " + name + "!");
                         loadProfileImage(avatarUrl);
                     }
+                    freshnessPolicy.markFresh(Section.USER_PROFILE);
                     completeLoad();
                 }
 
@@ -1134,11 +1196,14 @@
         }
 
         /**
-         * Registers a pending load operation
+         * Registers a pending load operation, only blocking the screen until
+         * there is content to show
          */
         private void registerPendingLoad() {
             pendingLoads.incrementAndGet();
-            showLoading();
+            if (!initialLoadComplete) {
+                showLoading();
+            }
         }
 
         /**
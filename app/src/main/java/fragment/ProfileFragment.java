@@ -22,6 +22,7 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.appfood.R;
+import com.example.appfood.RecipeCache;
 import com.example.appfood.UserProfileActivity;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
@@ -300,6 +301,13 @@ public class ProfileFragment extends Fragment {
      * Updates UI with upload count and sets user level based on recipe count.
      */
     private void fetchUploadedRecipesCount() {
+        // Show the count from the local recipe store right away, the request below corrects it
+        int cachedCount = RecipeCache.countRecipesByAuthor(requireContext(), currentUserId);
+        if (cachedCount >= 0) {
+            tvNumberUploadedRecipes.setText(String.valueOf(cachedCount));
+            setUserLevel(cachedCount);
+        }
+
         ApiService apiService = RetrofitClient.getApiService();
         apiService.getAllRecipes("Bearer " + token).enqueue(new Callback<ModelResponse.RecipeResponse>() {
             @Override
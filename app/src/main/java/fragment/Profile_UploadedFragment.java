@@ -16,12 +16,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.appfood.MainRecipe;
 import com.example.appfood.R;
+import com.example.appfood.RecipeLists;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import adapter.Profile_UploadedAdapter;
 import api.ModelResponse;
+import api.RatingBatchLoader;
 import api.ApiService;
 import api.RetrofitClient;
 import retrofit2.Call;
@@ -149,44 +151,27 @@ public class Profile_UploadedFragment extends Fragment {
         final AtomicInteger pendingRatings = new AtomicInteger(recipes.size());
 
         Log.d(TAG, "Fetching ratings for " + recipes.size() + " uploaded recipes");
-        ApiService apiService = RetrofitClient.getApiService();
+        RatingBatchLoader ratingLoader = RatingBatchLoader.getInstance();
 
         for (ModelResponse.RecipeResponse.Recipe recipe : recipes) {
-            String recipeId = recipe.getId();
-
-            Call<ModelResponse.getRatingResponse> call =
-                    apiService.getRecipeRating("Bearer " + token, recipeId);
-
-            call.enqueue(new Callback<ModelResponse.getRatingResponse>() {
+            ratingLoader.load("Bearer " + token, recipe.getId(), new RatingBatchLoader.RatingCallback() {
                 @Override
-                public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                       @NonNull Response<ModelResponse.getRatingResponse> response) {
-                    try {
-                        if (response.isSuccessful() && response.body() != null &&
-                                response.body().getData() != null) {
-
-                            ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
+                public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
+                    Log.d(TAG, "Recipe: " + recipe.getTitle() +
+                            " - Average Rating: " + ratingData.getAverageRating() +
+                            " - Total Ratings: " + ratingData.getTotalRatings());
 
-                            Log.d(TAG, "Recipe: " + recipe.getTitle() +
-                                    " - Average Rating: " + ratingData.getAverageRating() +
-                                    " - Total Ratings: " + ratingData.getTotalRatings());
+                    RecipeLists.update(recipes, recipeId,
+                            rated -> rated.withAverageRating(ratingData.getAverageRating()));
 
-                            recipe.setAverageRating(ratingData.getAverageRating());
-                        } else {
-                            Log.e(TAG, "Failed to get ratings for recipe: " + recipe.getTitle());
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing rating response: " + e.getMessage());
-                    } finally {
-                        if (pendingRatings.decrementAndGet() <= 0) {
-                            updateUI();
-                        }
+                    if (pendingRatings.decrementAndGet() <= 0) {
+                        updateUI();
                     }
                 }
 
                 @Override
-                public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
-                    Log.e(TAG, "API Call Failed (Ratings) - Recipe: " + recipe.getTitle() + ", Error: " + t.getMessage());
+                public void onError(String recipeId, String errorMessage) {
+                    Log.e(TAG, "API Call Failed (Ratings) - Recipe: " + recipe.getTitle() + ", Error: " + errorMessage);
 
                     if (pendingRatings.decrementAndGet() <= 0) {
                         updateUI();
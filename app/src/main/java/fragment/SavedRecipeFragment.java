@@ -6,9 +6,11 @@ import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.PopupMenu;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -18,28 +20,45 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.appfood.FreshnessPolicy;
 import com.example.appfood.MainRecipe;
 import com.example.appfood.R;
+import com.example.appfood.RecipeFilter;
+import com.example.appfood.RecipeLists;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 import adapter.SavedRecipesAdapter;
 import api.ApiService;
 import api.ModelResponse;
+import api.RatingBatchLoader;
 import api.RetrofitClient;
+import api.UserRepository;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class SavedRecipeFragment extends Fragment {
     private static final String TAG = "SavedRecipeFragment";
+    private static final int QUICK_RECIPE_MINUTES = 30;
+
+    // Items of the filter menu
+    private static final int FILTER_ALL = 0;
+    private static final int FILTER_QUICK = 1;
+    private static final int FILTER_TOP_RATED = 2;
+    private static final int FILTER_FEWEST_INGREDIENTS = 3;
 
     private RecyclerView recyclerView;
     private TextView titleTextView;
     private ImageButton btnBack;
+    private ImageButton btnFilter;
     private SavedRecipesAdapter adapter;
     private List<ModelResponse.RecipeResponse.Recipe> savedRecipes;
+    // Everything the server returned, savedRecipes is what passes the filter
+    private List<ModelResponse.RecipeResponse.Recipe> allSavedRecipes = new ArrayList<>();
+    private RecipeFilter filter = new RecipeFilter();
     private String token;
 
     // Loading overlay
@@ -72,6 +91,8 @@ public class SavedRecipeFragment extends Fragment {
         // Initialize views
         recyclerView = view.findViewById(R.id.savedRecipesRecyclerView);
         titleTextView = view.findViewById(R.id.titleTextView);
+        btnFilter = view.findViewById(R.id.btnFilter);
+        btnFilter.setOnClickListener(this::showFilterMenu);
 
         // Set up RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -161,22 +182,21 @@ public class SavedRecipeFragment extends Fragment {
                     }
 
                     // Process recipes normally
-                    savedRecipes.clear();
                     List<ModelResponse.RecipeResponse.Recipe> recipes = recipeResponse.getData().getRecipes();
                     Log.d(TAG, "Received " + recipes.size() + " saved recipes");
 
-                    savedRecipes.addAll(recipes);
-                    adapter.updateData(savedRecipes);
+                    allSavedRecipes = new ArrayList<>(recipes);
+                    showFilteredRecipes();
 
                     // Process recipes to get author names
-                    processRecipesForAuthorNames(savedRecipes);
+                    processRecipesForAuthorNames(allSavedRecipes);
 
                     // Fetch ratings for all recipes
-                    fetchRatingsForRecipes(savedRecipes);
+                    fetchRatingsForRecipes(allSavedRecipes);
 
                     // Check if the list is empty
                     if (savedRecipes.isEmpty()) {
-                        Log.d(TAG, "Saved recipes list is empty - showing empty state");
+                        Log.d(TAG, "No saved recipe passes the filter - showing empty state");
                         showEmptyState();
                     }
                 } else {
@@ -210,61 +230,131 @@ public class SavedRecipeFragment extends Fragment {
             return;
         }
 
-        ApiService apiService = RetrofitClient.getApiService();
+        final int[] completedRequests = {0};
+        final int totalRequests = recipes.size();
+        RatingBatchLoader ratingLoader = RatingBatchLoader.getInstance();
 
         for (ModelResponse.RecipeResponse.Recipe recipe : recipes) {
-            String recipeId = recipe.getId();
-
             // Don't show loading here to keep your existing loading behavior
-            Call<ModelResponse.getRatingResponse> call =
-                    apiService.getRecipeRating("Bearer " + token, recipeId);
-
-            call.enqueue(new Callback<ModelResponse.getRatingResponse>() {
+            ratingLoader.load("Bearer " + token, recipe.getId(), new RatingBatchLoader.RatingCallback() {
                 @Override
-                public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                       @NonNull Response<ModelResponse.getRatingResponse> response) {
-                    try {
-                        if (response.isSuccessful() && response.body() != null &&
-                                response.body().getData() != null) {
-
-                            ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
-
-                            // Log the rating values for debugging
-                            Log.d(TAG, "Recipe ID: " + recipeId +
-                                    " - Title: " + recipe.getTitle() +
-                                    " - Average Rating: " + ratingData.getAverageRating() +
-                                    " - Total Ratings: " + ratingData.getTotalRatings());
-
-                            // Update recipe with rating information
-                            recipe.setAverageRating(ratingData.getAverageRating());
-
-                            // Update UI for this specific recipe
-                            if (isAdded() && adapter != null) {
-                                requireActivity().runOnUiThread(() -> {
-                                    int position = savedRecipes.indexOf(recipe);
-                                    if (position >= 0) {
-                                        adapter.notifyItemChanged(position);
-                                    }
-                                });
-                            }
-                        } else {
-                            Log.e(TAG, "Failed to get ratings for Recipe ID: " + recipeId);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing rating: " + e.getMessage());
-                    }
+                public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
+                    // Log the rating values for debugging
+                    Log.d(TAG, "Recipe ID: " + recipeId +
+                            " - Title: " + recipe.getTitle() +
+                            " - Average Rating: " + ratingData.getAverageRating() +
+                            " - Total Ratings: " + ratingData.getTotalRatings());
+
+                    // Update recipe with rating information
+                    updateRecipe(recipeId, rated -> rated.withAverageRating(ratingData.getAverageRating()));
+
+                    onRatingCompleted();
                 }
 
                 @Override
-                public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
-                    Log.e(TAG, "API Call Failed (Ratings) - Recipe ID: " + recipeId + ", Error: " + t.getMessage());
+                public void onError(String recipeId, String errorMessage) {
+                    Log.e(TAG, "API Call Failed (Ratings) - Recipe ID: " + recipeId + ", Error: " + errorMessage);
+                    onRatingCompleted();
+                }
+
+                private void onRatingCompleted() {
+                    completedRequests[0]++;
+                    if (completedRequests[0] >= totalRequests) {
+                        onAllRatingsLoaded(recipes);
+                    }
                 }
             });
         }
     }
 
+    /**
+     * Narrows and sorts the saved recipes by cooking time, rating or ingredient count
+     */
+    public void setFilter(RecipeFilter filter) {
+        this.filter = filter != null ? filter : new RecipeFilter();
+        if (adapter != null) {
+            showFilteredRecipes();
+            if (savedRecipes.isEmpty()) {
+                showEmptyState();
+            }
+        }
+    }
+
+    /**
+     * Offers the filters the saved recipes can be shown with
+     */
+    private void showFilterMenu(View anchor) {
+        PopupMenu popupMenu = new PopupMenu(requireContext(), anchor);
+        popupMenu.getMenu().add(Menu.NONE, FILTER_ALL, 0, "All saved recipes");
+        popupMenu.getMenu().add(Menu.NONE, FILTER_QUICK, 1, "Under " + QUICK_RECIPE_MINUTES + " minutes");
+        popupMenu.getMenu().add(Menu.NONE, FILTER_TOP_RATED, 2, "Top rated");
+        popupMenu.getMenu().add(Menu.NONE, FILTER_FEWEST_INGREDIENTS, 3, "Fewest ingredients");
+        popupMenu.setOnMenuItemClickListener(item -> {
+            setFilter(createFilter(item.getItemId()));
+            return true;
+        });
+        popupMenu.show();
+    }
+
+    private static RecipeFilter createFilter(int menuItemId) {
+        switch (menuItemId) {
+            case FILTER_QUICK:
+                return new RecipeFilter().maxMinutes(QUICK_RECIPE_MINUTES).sortBy(RecipeFilter.Sort.QUICKEST);
+            case FILTER_TOP_RATED:
+                return new RecipeFilter().sortBy(RecipeFilter.Sort.TOP_RATED);
+            case FILTER_FEWEST_INGREDIENTS:
+                return new RecipeFilter().sortBy(RecipeFilter.Sort.FEWEST_INGREDIENTS);
+            default:
+                return new RecipeFilter();
+        }
+    }
+
+    private void showFilteredRecipes() {
+        savedRecipes.clear();
+        savedRecipes.addAll(filter.apply(allSavedRecipes));
+        adapter.updateData(savedRecipes);
+    }
+
+    /**
+     * Replaces a saved recipe with an updated copy, in the full list and where it is shown
+     */
+    private void updateRecipe(String recipeId, UnaryOperator<ModelResponse.RecipeResponse.Recipe> change) {
+        int index = RecipeLists.indexOf(allSavedRecipes, recipeId);
+        if (index < 0) {
+            return;
+        }
+
+        ModelResponse.RecipeResponse.Recipe current = allSavedRecipes.get(index);
+        ModelResponse.RecipeResponse.Recipe updated = change.apply(current);
+        allSavedRecipes.set(index, updated);
+
+        int position = savedRecipes.indexOf(current);
+        if (position >= 0) {
+            savedRecipes.set(position, updated);
+            if (isAdded() && adapter != null) {
+                adapter.notifyItemChanged(position);
+            }
+        }
+    }
+
+    /**
+     * Applies the filter again once every rating of a load is in, if the filter sorts or
+     * narrows by rating. Ratings start at 0, so the first pass put the recipes in server order
+     */
+    private void onAllRatingsLoaded(List<ModelResponse.RecipeResponse.Recipe> recipes) {
+        // A newer load replaced the recipes these ratings belong to
+        if (!isAdded() || adapter == null || recipes != allSavedRecipes || !filter.dependsOnRating()) {
+            return;
+        }
+        showFilteredRecipes();
+    }
+
     private void showEmptyState() {
-        Toast.makeText(getContext(), "Không có công thức nào đã lưu", Toast.LENGTH_SHORT).show();
+        if (allSavedRecipes.isEmpty()) {
+            Toast.makeText(getContext(), "Không có công thức nào đã lưu", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(getContext(), "Không có công thức nào phù hợp với bộ lọc", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void showError(String message) {
@@ -297,26 +387,15 @@ public class SavedRecipeFragment extends Fragment {
             return;
         }
 
-        ApiService apiService = RetrofitClient.getApiService();
-        Call<ModelResponse.UserResponse> call = apiService.getUserById("Bearer " + token, userId);
-
-        call.enqueue(new Callback<ModelResponse.UserResponse>() {
+        UserRepository.getInstance().getUser("Bearer " + token, userId, new UserRepository.UserCallback() {
             @Override
-            public void onResponse(Call<ModelResponse.UserResponse> call, Response<ModelResponse.UserResponse> response) {
-                if (response.isSuccessful() && response.body() != null &&
-                        response.body().getData() != null &&
-                        response.body().getData().getUser() != null) {
-
-                    ModelResponse.UserResponse.User user = response.body().getData().getUser();
-                    callback.onUserInfoFetched(user);
-                } else {
-                    callback.onError("Failed to load user info");
-                }
+            public void onSuccess(ModelResponse.UserResponse.User user) {
+                callback.onUserInfoFetched(user);
             }
 
             @Override
-            public void onFailure(Call<ModelResponse.UserResponse> call, Throwable t) {
-                callback.onError("Network error: " + t.getMessage());
+            public void onError(String errorMessage) {
+                callback.onError("Failed to load user info: " + errorMessage);
             }
         });
     }
@@ -343,16 +422,9 @@ public class SavedRecipeFragment extends Fragment {
                 getUserInfoById(author, new OnUserInfoFetchedCallback() {
                     @Override
                     public void onUserInfoFetched(ModelResponse.UserResponse.User user) {
-                        // Update the recipe with the real author name
+                        // Show the real author name instead of the id
                         String realName = user.getName();
-                        // We can't modify recipe.author directly as it might be final/immutable
-                        // So we'll use a workaround - store the name in a temp field
-                        recipe.setAuthor(realName);
-
-                        // Update the UI
-                        if (adapter != null) {
-                            adapter.notifyDataSetChanged();
-                        }
+                        updateRecipe(recipe.getId(), named -> named.withAuthor(realName));
                     }
 
                     @Override
@@ -387,9 +459,11 @@ public class SavedRecipeFragment extends Fragment {
                 hideLoading();
 
                 if (response.isSuccessful()) {
+                    FreshnessPolicy.signalChanged(FreshnessPolicy.Section.SAVED_RECIPES);
+
                     // Remove the recipe from the list
                     if (position >= 0 && position < savedRecipes.size()) {
-                        savedRecipes.remove(position);
+                        allSavedRecipes.remove(savedRecipes.remove(position));
                         adapter.notifyItemRemoved(position);
 
                         // Show empty state if no more recipes
@@ -449,24 +523,25 @@ public class SavedRecipeFragment extends Fragment {
                         response.body().getData().getRecipes() != null) {
 
                     // Update our recipe list with the freshly loaded recipes
-                    savedRecipes.clear();
                     List<ModelResponse.RecipeResponse.Recipe> recipes = response.body().getData().getRecipes();
-                    savedRecipes.addAll(recipes);
+                    allSavedRecipes = new ArrayList<>(recipes);
 
                     // Update adapter with the new recipe list
-                    adapter.updateData(savedRecipes);
+                    showFilteredRecipes();
 
                     // IMPORTANT: Fetch fresh ratings for all recipes
-                    // This will ensure we have the latest ratings
-                    if (!savedRecipes.isEmpty()) {
-                        refreshAllRecipeRatings(savedRecipes);
+                    // This will ensure we have the latest ratings, also for recipes the filter hides now
+                    if (!allSavedRecipes.isEmpty()) {
+                        refreshAllRecipeRatings(allSavedRecipes);
                     } else {
                         hideLoading();
+                    }
+                    if (savedRecipes.isEmpty()) {
                         showEmptyState();
                     }
 
                     // Also update author names
-                    processRecipesForAuthorNames(savedRecipes);
+                    processRecipesForAuthorNames(allSavedRecipes);
 
                 } else {
                     hideLoading();
@@ -497,62 +572,37 @@ public class SavedRecipeFragment extends Fragment {
 
         Log.d(TAG, "Refreshing ratings for " + totalRequests + " recipes");
 
-        ApiService apiService = RetrofitClient.getApiService();
+        RatingBatchLoader ratingLoader = RatingBatchLoader.getInstance();
 
         for (ModelResponse.RecipeResponse.Recipe recipe : recipes) {
-            String recipeId = recipe.getId();
-
-            Call<ModelResponse.getRatingResponse> call =
-                    apiService.getRecipeRating("Bearer " + token, recipeId);
-
-            call.enqueue(new Callback<ModelResponse.getRatingResponse>() {
+            ratingLoader.load("Bearer " + token, recipe.getId(), new RatingBatchLoader.RatingCallback() {
                 @Override
-                public void onResponse(@NonNull Call<ModelResponse.getRatingResponse> call,
-                                       @NonNull Response<ModelResponse.getRatingResponse> response) {
-                    if (response.isSuccessful() && response.body() != null &&
-                            response.body().getData() != null) {
-
-                        ModelResponse.getRatingResponse.Data ratingData = response.body().getData();
-
-                        double newRating = ratingData.getAverageRating();
-                        String recipeTitle = recipe.getTitle();
+                public void onRating(String recipeId, ModelResponse.getRatingResponse.Data ratingData) {
+                    double newRating = ratingData.getAverageRating();
+                    Log.d(TAG, "Updated rating for " + recipe.getTitle() + ": " + newRating);
 
-                        Log.d(TAG, "Updated rating for " + recipeTitle + ": " + newRating);
+                    // Update recipe with fresh rating data
+                    updateRecipe(recipeId, rated -> rated.withAverageRating(newRating));
 
-                        // Update recipe with fresh rating data
-                        recipe.setAverageRating(newRating);
-
-                        // Update UI for this specific recipe
-                        if (isAdded()) {
-                            requireActivity().runOnUiThread(() -> {
-                                int position = savedRecipes.indexOf(recipe);
-                                if (position >= 0) {
-                                    adapter.notifyItemChanged(position);
-                                }
-                            });
-                        }
-                    }
-
-                    // Count this request as completed
-                    completedRequests[0]++;
-
-                    // If all requests are completed, hide loading
-                    if (completedRequests[0] >= totalRequests) {
-                        hideLoading();
-                        Log.d(TAG, "All " + totalRequests + " rating refreshes completed");
-                    }
+                    onRatingRefreshCompleted();
                 }
 
                 @Override
-                public void onFailure(@NonNull Call<ModelResponse.getRatingResponse> call, @NonNull Throwable t) {
-                    Log.e(TAG, "Failed to refresh rating for recipe: " + t.getMessage());
+                public void onError(String recipeId, String errorMessage) {
+                    Log.e(TAG, "Failed to refresh rating for recipe: " + errorMessage);
 
                     // Count failed request as completed
+                    onRatingRefreshCompleted();
+                }
+
+                private void onRatingRefreshCompleted() {
                     completedRequests[0]++;
 
                     // If all requests are completed, hide loading
                     if (completedRequests[0] >= totalRequests) {
                         hideLoading();
+                        Log.d(TAG, "All " + totalRequests + " rating refreshes completed");
+                        onAllRatingsLoaded(recipes);
                     }
                 }
             });
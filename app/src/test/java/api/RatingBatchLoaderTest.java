@@ -0,0 +1,164 @@
+package api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs RatingBatchLoader against a stand-in server for the two rating endpoints
+ */
+public class RatingBatchLoaderTest {
+    private static final String AUTH = "Bearer token";
+
+    private MockWebServer server;
+    private final List<String> requestedPaths = new ArrayList<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private RatingBatchLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .callbackExecutor(Runnable::run)
+                .addConverterFactory(GsonConverterFactory.create(ApiGson.get()))
+                .build();
+        loader = new RatingBatchLoader(retrofit.create(ApiService.class),
+                (task, delayMs) -> scheduled.add(task));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void recipesMissingFromBatchFallBackToSingleCalls() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                HttpUrl url = request.getRequestUrl();
+                synchronized (requestedPaths) {
+                    requestedPaths.add(url.encodedPath());
+                }
+                if (url.encodedPath().endsWith("get-recipes-rating")
+                        && "r1,r2,r3".equals(url.queryParameter("ids"))) {
+                    return json("{\"status\":\"success\",\"data\":{\"ratings\":{"
+                            + "\"r1\":{\"averageRating\":4.5,\"totalRatings\":2},"
+                            + "\"r2\":{\"averageRating\":3.0,\"totalRatings\":1}}}}");
+                }
+                if (url.encodedPath().endsWith("get-recipe-rating") && "r3".equals(url.queryParameter("id"))) {
+                    return json("{\"status\":\"success\",\"data\":{\"averageRating\":5.0,\"totalRatings\":7}}");
+                }
+                return new MockResponse().setResponseCode(500);
+            }
+        });
+
+        RecordingCallback callback = new RecordingCallback(3);
+        loader.load(AUTH, "r1", callback);
+        loader.load(AUTH, "r2", callback);
+        loader.load(AUTH, "r3", callback);
+        runBatchWindow();
+
+        assertTrue(callback.done.await(5, TimeUnit.SECONDS));
+        assertTrue(callback.errors.isEmpty());
+        assertEquals(4.5, callback.ratings.get("r1").getAverageRating(), 0.001);
+        assertEquals(3.0, callback.ratings.get("r2").getAverageRating(), 0.001);
+        assertEquals(7, callback.ratings.get("r3").getTotalRatings());
+        assertEquals(2, requestedPaths.size());
+    }
+
+    @Test
+    public void missingBatchEndpointSwitchesToSingleCalls() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                HttpUrl url = request.getRequestUrl();
+                synchronized (requestedPaths) {
+                    requestedPaths.add(url.encodedPath());
+                }
+                if (url.encodedPath().endsWith("get-recipes-rating")) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                return json("{\"status\":\"success\",\"data\":{\"averageRating\":2.0,\"totalRatings\":1}}");
+            }
+        });
+
+        RecordingCallback first = new RecordingCallback(2);
+        loader.load(AUTH, "r1", first);
+        loader.load(AUTH, "r2", first);
+        runBatchWindow();
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, first.ratings.size());
+
+        // The batch endpoint is not tried again
+        RecordingCallback second = new RecordingCallback(1);
+        loader.load(AUTH, "r3", second);
+        runBatchWindow();
+        assertTrue(second.done.await(5, TimeUnit.SECONDS));
+        assertEquals(2.0, second.ratings.get("r3").getAverageRating(), 0.001);
+
+        int batchRequests = 0;
+        synchronized (requestedPaths) {
+            for (String path : requestedPaths) {
+                if (path.endsWith("get-recipes-rating")) {
+                    batchRequests++;
+                }
+            }
+        }
+        assertEquals(1, batchRequests);
+    }
+
+    private void runBatchWindow() {
+        List<Runnable> tasks = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    private static class RecordingCallback implements RatingBatchLoader.RatingCallback {
+        final Map<String, ModelResponse.getRatingResponse.Data> ratings = new ConcurrentHashMap<>();
+        final Map<String, String> errors = new ConcurrentHashMap<>();
+        final CountDownLatch done;
+
+        RecordingCallback(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onRating(String recipeId, ModelResponse.getRatingResponse.Data rating) {
+            ratings.put(recipeId, rating);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(String recipeId, String errorMessage) {
+            errors.put(recipeId, errorMessage);
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that recipes stay unchanged once built and that the summary projection shares data
+ */
+public class RecipeModelTest {
+
+    @Test
+    public void builtListsCannotBeChanged() {
+        ModelResponse.RecipeResponse.Recipe recipe = new ModelResponse.RecipeResponse.Recipe.Builder()
+                .id("r1")
+                .ingredients(new ArrayList<>(Arrays.asList("bánh phở", "thịt bò")))
+                .build();
+
+        try {
+            recipe.getIngredients().add("hành");
+            fail("ingredients of a built recipe were changed");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(2, recipe.getIngredients().size());
+        }
+    }
+
+    @Test
+    public void withAverageRatingLeavesOriginalUnchanged() {
+        ModelResponse.RecipeResponse.Recipe recipe = new ModelResponse.RecipeResponse.Recipe.Builder()
+                .id("r1")
+                .author("u1")
+                .ingredients(Arrays.asList("bánh phở"))
+                .rating(Collections.singletonList(new ModelResponse.RecipeDetailResponse.Rating("a", 4, "u2", null)))
+                .build();
+
+        ModelResponse.RecipeResponse.Recipe rated = recipe.withAverageRating(2.5);
+        ModelResponse.RecipeResponse.Recipe named = recipe.withAuthor("Lan");
+
+        assertEquals(4.0, recipe.getAverageRating(), 0.0);
+        assertEquals(2.5, rated.getAverageRating(), 0.0);
+        assertEquals("u1", recipe.getAuthor());
+        assertEquals("Lan", named.getAuthor());
+        assertSame(recipe.getIngredients(), rated.getIngredients());
+    }
+
+    @Test
+    public void detailCopiesKeepTheirComments() {
+        ModelResponse.RecipeDetailResponse.Recipe detail = detail();
+
+        ModelResponse.RecipeResponse.Recipe rated = detail.withAverageRating(3);
+
+        assertTrue(rated instanceof ModelResponse.RecipeDetailResponse.Recipe);
+        assertSame(detail.getComments(), ((ModelResponse.RecipeDetailResponse.Recipe) rated).getComments());
+    }
+
+    @Test
+    public void summaryOfDetailSharesLists() {
+        ModelResponse.RecipeDetailResponse.Recipe detail = detail();
+
+        ModelResponse.RecipeResponse.Recipe summary = detail.toSummary();
+
+        assertEquals(ModelResponse.RecipeResponse.Recipe.class, summary.getClass());
+        assertEquals("r1", summary.getId());
+        assertEquals("Phở bò", summary.getTitle());
+        assertSame(detail.getIngredients(), summary.getIngredients());
+        assertSame(detail.getInstructions(), summary.getInstructions());
+        assertSame(detail.getRating(), summary.getRating());
+        assertSame(summary, summary.toSummary());
+    }
+
+    private static ModelResponse.RecipeDetailResponse.Recipe detail() {
+        List<ModelResponse.RecipeDetailResponse.Comment> comments = Collections.singletonList(
+                new ModelResponse.RecipeDetailResponse.Comment("c1", "u2", "Ngon", null));
+        ModelResponse.RecipeDetailResponse.Recipe.Builder builder = new ModelResponse.RecipeDetailResponse.Recipe.Builder()
+                .createdAt("2024-01-01")
+                .comments(comments);
+        builder.id("r1")
+                .title("Phở bò")
+                .ingredients(Arrays.asList("bánh phở", "thịt bò"))
+                .instructions(Arrays.asList("Nấu nước dùng"))
+                .rating(Collections.singletonList(new ModelResponse.RecipeDetailResponse.Rating("a", 5, "u2", null)));
+        return builder.build();
+    }
+}
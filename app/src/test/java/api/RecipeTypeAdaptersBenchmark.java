@@ -0,0 +1,131 @@
+package api;
+
+import com.google.gson.Gson;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Times the hand-written recipe adapters against Gson's reflective ones on a catalog sized
+ * list payload and a busy detail payload. Skipped unless run with
+ * ./gradlew testDebugUnitTest -Pbenchmark --tests api.RecipeTypeAdaptersBenchmark
+ *
+ * Each case reports the time and the bytes allocated per parse, once for the first
+ * parses (cold, as on a fresh app start) and once after warming up.
+ */
+public class RecipeTypeAdaptersBenchmark {
+    private static final int COLD_PARSES = 20;
+    private static final int WARM_PARSES = 2000;
+    private static final int WARMUP_PARSES = 20000;
+
+    private final String listJson = listJson(200);
+    private final String detailJson = detailJson(20, 20);
+
+    @Before
+    public void onlyWhenAsked() {
+        Assume.assumeTrue("run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+    }
+
+    @Test
+    public void listPayload() {
+        compare("list", listJson, ModelResponse.RecipeResponse.class);
+    }
+
+    @Test
+    public void detailPayload() {
+        compare("detail", detailJson, ModelResponse.RecipeDetailResponse.class);
+    }
+
+    private static void compare(String name, String json, Class<?> type) {
+        // Fresh instances, so the cold figures include building the adapters
+        Gson handWritten = ApiGson.get().newBuilder().create();
+        Gson reflective = new Gson();
+
+        report(name, "hand-written", "cold", measure(handWritten, json, type, COLD_PARSES));
+        report(name, "reflective", "cold", measure(reflective, json, type, COLD_PARSES));
+
+        measure(handWritten, json, type, WARMUP_PARSES);
+        measure(reflective, json, type, WARMUP_PARSES);
+
+        report(name, "hand-written", "warm", measure(handWritten, json, type, WARM_PARSES));
+        report(name, "reflective", "warm", measure(reflective, json, type, WARM_PARSES));
+    }
+
+    /**
+     * @return Nanoseconds and allocated bytes per parse
+     */
+    private static long[] measure(Gson gson, String json, Class<?> type, int parses) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        Object last = null;
+        for (int i = 0; i < parses; i++) {
+            last = gson.fromJson(json, type);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        if (last == null) {
+            throw new AssertionError("nothing parsed");
+        }
+        return new long[] {elapsed / parses, bytes / parses};
+    }
+
+    private static void report(String payload, String adapters, String phase, long[] result) {
+        System.out.println(String.format(Locale.ROOT, "%-6s %-12s %-4s %8.1f us %9d bytes per parse",
+                payload, adapters, phase, result[0] / 1000.0, result[1]));
+    }
+
+    private static String listJson(int recipes) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"results\":")
+                .append(recipes).append(",\"data\":{\"recipes\":[");
+        for (int i = 0; i < recipes; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendRecipe(json, i, 3);
+            json.append('}');
+        }
+        return json.append("]}}").toString();
+    }
+
+    private static String detailJson(int comments, int ratings) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"recipe\":");
+        appendRecipe(json, 0, ratings);
+        json.append(",\"created_at\":\"2024-01-01T08:00:00.000Z\",\"updated_at\":\"2024-02-01T08:00:00.000Z\"")
+                .append(",\"comments\":[");
+        for (int i = 0; i < comments; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"c").append(i).append("\",\"author_id\":\"u").append(i)
+                    .append("\",\"content\":\"Món này ngon, lần sau mình sẽ bớt muối một chút\"")
+                    .append(",\"created_at\":\"2024-03-01T08:00:00.000Z\"}");
+        }
+        return json.append("]}}}").toString();
+    }
+
+    private static void appendRecipe(StringBuilder json, int id, int ratings) {
+        json.append("{\"id\":\"r").append(id).append("\",\"title\":\"Phở bò tái nạm ").append(id)
+                .append("\",\"author\":\"u").append(id % 50)
+                .append("\",\"image_url\":\"https://example.com/images/").append(id).append(".jpg\"")
+                .append(",\"ingredients\":[\"bánh phở\",\"thịt bò\",\"hành lá\",\"gừng\",\"quế\",\"hoa hồi\"]")
+                .append(",\"instructions\":[\"Ninh xương bò\",\"Nướng gừng và hành\",\"Trụng bánh phở\",\"Chan nước dùng\"]")
+                .append(",\"time\":\"45 phút\",\"averageRating\":4.5,\"rating\":[");
+        for (int i = 0; i < ratings; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"a").append(i).append("\",\"rating\":").append(1 + i % 5)
+                    .append(",\"user_id\":\"u").append(i).append("\",\"created_at\":\"2024-03-01T08:00:00.000Z\"}");
+        }
+        json.append(']');
+    }
+}
@@ -0,0 +1,106 @@
+package api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the hand-written recipe adapters read and write the same JSON as Gson's
+ * reflective adapters do for the same classes
+ */
+public class RecipeTypeAdaptersTest {
+    static final String LIST_JSON = "{\"status\":\"success\",\"results\":2,\"data\":{\"recipes\":["
+            + "{\"id\":\"r1\",\"title\":\"Phở bò\",\"author\":\"u1\",\"image_url\":\"https://img/pho.jpg\","
+            + "\"ingredients\":[\"bánh phở\",\"thịt bò\",\"hành\"],"
+            + "\"instructions\":[\"Nấu nước dùng\",\"Trụng bánh phở\"],"
+            + "\"time\":\"45 phút\",\"averageRating\":4.5,"
+            + "\"rating\":[{\"id\":\"a1\",\"rating\":5,\"user_id\":\"u2\",\"created_at\":\"2024-03-01\"},"
+            + "{\"id\":\"a2\",\"rating\":4,\"user_id\":\"u3\",\"created_at\":\"2024-03-02\"}],"
+            + "\"__v\":0},"
+            + "{\"id\":\"r2\",\"title\":\"Canh chua\",\"author\":null,\"ingredients\":[],"
+            + "\"time\":\"30 phút\",\"rating\":[{\"id\":\"a3\",\"rating\":3,\"user_id\":\"u2\"}]}"
+            + "]}}";
+
+    static final String DETAIL_JSON = "{\"status\":\"success\",\"data\":{\"recipe\":"
+            + "{\"id\":\"r1\",\"title\":\"Phở bò\",\"author\":\"u1\",\"image_url\":\"https://img/pho.jpg\","
+            + "\"ingredients\":[\"bánh phở\",\"thịt bò\"],\"instructions\":[\"Nấu nước dùng\"],"
+            + "\"created_at\":\"2024-01-01\",\"updated_at\":\"2024-02-01\","
+            + "\"comments\":[{\"id\":\"c1\",\"author_id\":\"u2\",\"content\":\"Ngon quá\",\"created_at\":\"2024-03-01\"},"
+            + "{\"id\":\"c2\",\"author_id\":\"u3\",\"content\":\"Hơi mặn\"}],"
+            + "\"rating\":[{\"id\":\"a1\",\"rating\":5,\"user_id\":\"u2\",\"created_at\":\"2024-03-01\"}],"
+            + "\"time\":\"45 phút\",\"averageRating\":0,\"AverageRating\":5}}}";
+
+    private final Gson reflective = new Gson();
+
+    @Test
+    public void listResponseReadsLikeReflection() {
+        ModelResponse.RecipeResponse handWritten = ApiGson.get().fromJson(LIST_JSON, ModelResponse.RecipeResponse.class);
+        ModelResponse.RecipeResponse viaReflection = reflective.fromJson(LIST_JSON, ModelResponse.RecipeResponse.class);
+
+        assertEquals(reflective.toJsonTree(viaReflection), reflective.toJsonTree(handWritten));
+        assertEquals(2, handWritten.getData().getRecipes().size());
+    }
+
+    @Test
+    public void detailResponseReadsLikeReflection() {
+        ModelResponse.RecipeDetailResponse handWritten =
+                ApiGson.get().fromJson(DETAIL_JSON, ModelResponse.RecipeDetailResponse.class);
+        ModelResponse.RecipeDetailResponse viaReflection =
+                reflective.fromJson(DETAIL_JSON, ModelResponse.RecipeDetailResponse.class);
+
+        assertEquals(reflective.toJsonTree(viaReflection), reflective.toJsonTree(handWritten));
+        assertEquals(2, handWritten.getData().getRecipe().getComments().size());
+    }
+
+    @Test
+    public void listResponseWritesLikeReflection() {
+        ModelResponse.RecipeResponse response = ApiGson.get().fromJson(LIST_JSON, ModelResponse.RecipeResponse.class);
+
+        assertEquals(parse(reflective.toJson(response)), parse(ApiGson.get().toJson(response)));
+    }
+
+    @Test
+    public void detailResponseWritesLikeReflection() {
+        ModelResponse.RecipeDetailResponse response =
+                ApiGson.get().fromJson(DETAIL_JSON, ModelResponse.RecipeDetailResponse.class);
+
+        assertEquals(parse(reflective.toJson(response)), parse(ApiGson.get().toJson(response)));
+    }
+
+    @Test
+    public void fixturesCoverEveryField() {
+        // A field added to a model but not to its adapter would otherwise go unnoticed here
+        assertFieldsPresent(ModelResponse.RecipeResponse.class, LIST_JSON);
+        assertFieldsPresent(ModelResponse.RecipeResponse.Data.class, LIST_JSON);
+        assertFieldsPresent(ModelResponse.RecipeResponse.Recipe.class, LIST_JSON);
+        assertFieldsPresent(ModelResponse.RecipeDetailResponse.Rating.class, LIST_JSON);
+        assertFieldsPresent(ModelResponse.RecipeDetailResponse.class, DETAIL_JSON);
+        assertFieldsPresent(ModelResponse.RecipeDetailResponse.RecipeData.class, DETAIL_JSON);
+        assertFieldsPresent(ModelResponse.RecipeDetailResponse.Recipe.class, DETAIL_JSON);
+        assertFieldsPresent(ModelResponse.RecipeDetailResponse.Comment.class, DETAIL_JSON);
+    }
+
+    private static void assertFieldsPresent(Class<?> type, String json) {
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                assertTrue(type.getSimpleName() + "." + field.getName() + " is not in the fixture",
+                        json.contains("\"" + field.getName() + "\":"));
+            }
+        }
+    }
+
+    private static JsonElement parse(String json) {
+        return JsonParser.parseString(json);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.appfood;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import api.ModelResponse;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how ImageSearchCache matches, expires and replaces stored search results
+ */
+public class ImageSearchCacheTest {
+    private static final long HASH = 0x5A5A_F00F_1234_8001L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void hashDistanceCountsDifferentBits() {
+        assertEquals(0, ImagePreparer.hashDistance(HASH, HASH));
+        assertEquals(1, ImagePreparer.hashDistance(HASH, flip(HASH, 1)));
+        assertEquals(6, ImagePreparer.hashDistance(HASH, flip(HASH, 6)));
+        assertEquals(64, ImagePreparer.hashDistance(HASH, ~HASH));
+        assertEquals(ImagePreparer.hashDistance(HASH, 42L), ImagePreparer.hashDistance(42L, HASH));
+    }
+
+    @Test
+    public void matchesUpToSixBitsAway() {
+        List<ImageSearchCache.Entry> entries = new ArrayList<>();
+        entries.add(entry(flip(HASH, ImageSearchCache.MAX_DISTANCE), NOW));
+
+        assertNotNull(ImageSearchCache.findClosest(entries, HASH, NOW));
+
+        entries.set(0, entry(flip(HASH, ImageSearchCache.MAX_DISTANCE + 1), NOW));
+        assertNull(ImageSearchCache.findClosest(entries, HASH, NOW));
+    }
+
+    @Test
+    public void closestEntryWins() {
+        List<ImageSearchCache.Entry> entries = new ArrayList<>();
+        ImageSearchCache.Entry far = entry(flip(HASH, 5), NOW);
+        ImageSearchCache.Entry near = entry(flip(HASH, 2), NOW);
+        entries.add(far);
+        entries.add(near);
+
+        assertSame(near, ImageSearchCache.findClosest(entries, HASH, NOW));
+    }
+
+    @Test
+    public void expiredEntriesAreNotUsed() {
+        List<ImageSearchCache.Entry> entries = new ArrayList<>();
+        entries.add(entry(HASH, NOW - ImageSearchCache.TTL_MS));
+        assertNotNull(ImageSearchCache.findClosest(entries, HASH, NOW));
+
+        entries.set(0, entry(HASH, NOW - ImageSearchCache.TTL_MS - 1));
+        assertNull(ImageSearchCache.findClosest(entries, HASH, NOW));
+
+        // Saved after now, the clock was changed since
+        entries.set(0, entry(HASH, NOW + 60_000));
+        assertNull(ImageSearchCache.findClosest(entries, HASH, NOW));
+    }
+
+    @Test
+    public void putReplacesNearIdenticalImages() {
+        List<ImageSearchCache.Entry> entries = new ArrayList<>();
+        ImageSearchCache.Entry other = entry(~HASH, NOW - 2000);
+        entries.add(entry(flip(HASH, 3), NOW - 1000));
+        entries.add(other);
+
+        ImageSearchCache.Entry added = entry(HASH, NOW);
+        ImageSearchCache.insert(entries, added);
+
+        assertEquals(2, entries.size());
+        assertSame(added, entries.get(0));
+        assertSame(other, entries.get(1));
+    }
+
+    @Test
+    public void putDropsExpiredAndOldestEntries() {
+        List<ImageSearchCache.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < ImageSearchCache.MAX_ENTRIES; i++) {
+            // Spread the hashes so none is within reach of another
+            entries.add(entry(spread(i + 1), NOW - 1000 - i));
+        }
+        ImageSearchCache.Entry oldest = entries.get(entries.size() - 1);
+
+        ImageSearchCache.insert(entries, entry(spread(100), NOW));
+        assertEquals(ImageSearchCache.MAX_ENTRIES, entries.size());
+        assertFalse(entries.contains(oldest));
+
+        entries.get(5).savedAt = NOW - ImageSearchCache.TTL_MS - 1;
+        ImageSearchCache.insert(entries, entry(spread(101), NOW));
+        assertEquals(ImageSearchCache.MAX_ENTRIES, entries.size());
+        for (ImageSearchCache.Entry entry : entries) {
+            assertTrue(NOW - entry.savedAt <= ImageSearchCache.TTL_MS);
+        }
+    }
+
+    private static ImageSearchCache.Entry entry(long hash, long savedAt) {
+        return new ImageSearchCache.Entry(hash, savedAt, new ModelResponse().new searchImageResponse());
+    }
+
+    /**
+     * The hash with its lowest bits bits inverted
+     */
+    private static long flip(long hash, int bits) {
+        return hash ^ ((1L << bits) - 1);
+    }
+
+    /**
+     * Hashes that are far apart from each other, by multiplying with an odd constant
+     */
+    private static long spread(int i) {
+        return i * 0x9E37_79B9_7F4A_7C15L;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.appfood;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecipeFacetsTest {
+
+    @Test
+    public void parseMinutes_readsCommonFormats() {
+        assertEquals(45, RecipeFacets.parseMinutes("45 phút"));
+        assertEquals(90, RecipeFacets.parseMinutes("1 giờ 30 phút"));
+        assertEquals(90, RecipeFacets.parseMinutes("1h30"));
+        assertEquals(75, RecipeFacets.parseMinutes("1:15"));
+        assertEquals(40, RecipeFacets.parseMinutes("30-40 mins"));
+        assertEquals(90, RecipeFacets.parseMinutes("1,5 giờ"));
+    }
+
+    @Test
+    public void parseMinutes_takesLastOfAList() {
+        assertEquals(20, RecipeFacets.parseMinutes("10,15,20 phút"));
+        assertEquals(40, RecipeFacets.parseMinutes("30, 40 phút"));
+    }
+
+    @Test
+    public void parseMinutes_neverThrowsOnRepeatedSeparators() {
+        RecipeFacets.parseMinutes("1.2.3 phút");
+        RecipeFacets.parseMinutes("10,,15 phút");
+        RecipeFacets.parseMinutes("5.,");
+    }
+
+    @Test
+    public void parseMinutes_unknownWithoutNumber() {
+        assertEquals(RecipeFacets.UNKNOWN, RecipeFacets.parseMinutes("nhanh"));
+        assertEquals(RecipeFacets.UNKNOWN, RecipeFacets.parseMinutes(""));
+        assertEquals(RecipeFacets.UNKNOWN, RecipeFacets.parseMinutes(null));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.appfood;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecipeFuzzyIndexTest {
+    private final RecipeFuzzyIndex index = new RecipeFuzzyIndex(Arrays.asList(
+            "bo", "canh", "chua", "ga", "muoi", "nuong", "pho", "rau", "thit", "xao"));
+
+    @Test
+    public void findCandidates_swappedLettersInShortTerm() {
+        // Shares no trigram with "muoi"
+        assertEquals(Arrays.asList("muoi"), terms(index.findCandidates("moui")));
+        assertEquals(Arrays.asList("canh"), terms(index.findCandidates("cnah")));
+    }
+
+    @Test
+    public void findCandidates_twoSwapsInLongerTerm() {
+        assertEquals(Arrays.asList("nuong"), terms(index.findCandidates("unogn")));
+    }
+
+    @Test
+    public void findCandidates_longTermStillFilteredByTrigrams() {
+        RecipeFuzzyIndex longTerms = new RecipeFuzzyIndex(Arrays.asList(
+                "caramel", "khoaitay", "thitkhotau"));
+        assertEquals(Arrays.asList("khoaitay"), terms(longTerms.findCandidates("khoatiay")));
+        assertEquals(Arrays.asList("thitkhotau"), terms(longTerms.findCandidates("thtikhotua")));
+    }
+
+    @Test
+    public void findCandidates_ignoresDistantTerms() {
+        assertTrue(index.findCandidates("kem").isEmpty());
+        assertTrue(index.findCandidates("ab").isEmpty());
+    }
+
+    @Test
+    public void boundedEditDistance_countsSwapAsOneEdit() {
+        assertEquals(1, RecipeFuzzyIndex.boundedEditDistance("moui", "muoi", 1));
+        assertEquals(2, RecipeFuzzyIndex.boundedEditDistance("unogn", "nuong", 2));
+        assertEquals(2, RecipeFuzzyIndex.boundedEditDistance("abcd", "wxyz", 1));
+    }
+
+    private static List<String> terms(List<RecipeFuzzyIndex.Candidate> candidates) {
+        List<String> terms = new ArrayList<>();
+        for (RecipeFuzzyIndex.Candidate candidate : candidates) {
+            terms.add(candidate.term);
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.appfood;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecipePantryIndexTest {
+
+    @Test
+    public void ingredientName_dropsAmountsAndUnits() {
+        assertEquals("thit bo", RecipePantryIndex.ingredientName("200g thịt bò"));
+        assertEquals("nuoc mam", RecipePantryIndex.ingredientName("2 muỗng nước mắm"));
+        assertEquals("toi", RecipePantryIndex.ingredientName("3 tép tỏi"));
+        assertEquals("nuoc dua", RecipePantryIndex.ingredientName("1 lon nước dừa"));
+        assertEquals("muoi", RecipePantryIndex.ingredientName("Ít muối"));
+    }
+
+    @Test
+    public void ingredientName_keepsIngredientsSpelledLikeUnits() {
+        assertEquals("thit lon", RecipePantryIndex.ingredientName("500g thịt lợn"));
+        assertEquals("tep rang", RecipePantryIndex.ingredientName("Tép rang"));
+        assertEquals("goi cuon", RecipePantryIndex.ingredientName("gỏi cuốn"));
+        assertEquals("thit heo", RecipePantryIndex.ingredientName("1 gói thịt heo"));
+    }
+
+    @Test
+    public void ingredientName_emptyWhenOnlyAmounts() {
+        assertEquals("", RecipePantryIndex.ingredientName("200 g"));
+        assertEquals("", RecipePantryIndex.ingredientName(null));
+    }
+}
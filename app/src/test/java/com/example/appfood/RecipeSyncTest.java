@@ -0,0 +1,141 @@
+package com.example.appfood;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import api.ApiGson;
+import api.ApiService;
+import api.ModelResponse.RecipeResponse.Recipe;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the since handshake of the catalog sync against a stand-in get-all-recipes endpoint
+ */
+public class RecipeSyncTest {
+    private static final String AUTH = "Bearer token";
+
+    private MockWebServer server;
+    private ApiService apiService;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .addConverterFactory(GsonConverterFactory.create(ApiGson.get()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstSyncReadsFullSnapshot() throws Exception {
+        server.enqueue(json("{\"status\":\"success\",\"data\":{\"recipes\":["
+                + "{\"id\":\"r1\",\"title\":\"Phở bò\",\"ingredients\":[\"bánh phở\",\"thịt bò\"]},"
+                + "{\"id\":\"r2\",\"title\":\"Bún chả\"}],\"deletedIds\":[],\"syncedAt\":1000}}"));
+
+        RecordingSink sink = new RecordingSink();
+        RecipeDeltaReader delta = fetch(0, sink);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("0", request.getRequestUrl().queryParameter("since"));
+        assertEquals("no-store", request.getHeader("Cache-Control"));
+
+        assertEquals(2, delta.getRecipeCount());
+        assertEquals(0, delta.getDeletedCount());
+        assertEquals(1000, delta.getSyncedAt());
+        assertEquals("r1", sink.putIds.get(0));
+        assertEquals("r2", sink.putIds.get(1));
+        assertEquals("Phở bò", sink.puts.get(0).getTitle());
+        assertEquals(2, sink.puts.get(0).getIngredients().size());
+        assertTrue(RecipeSync.isFullSnapshot(0, delta));
+    }
+
+    @Test
+    public void laterSyncReadsDelta() throws Exception {
+        server.enqueue(json("{\"status\":\"success\",\"data\":{\"syncedAt\":2000,"
+                + "\"recipes\":[{\"id\":\"r3\",\"title\":\"Gỏi cuốn\"}],"
+                + "\"deletedIds\":[\"r1\",\"r2\"]}}"));
+
+        RecordingSink sink = new RecordingSink();
+        RecipeDeltaReader delta = fetch(1000, sink);
+
+        assertEquals("1000", server.takeRequest().getRequestUrl().queryParameter("since"));
+        assertEquals(1, delta.getRecipeCount());
+        assertEquals(2, delta.getDeletedCount());
+        assertEquals(2000, delta.getSyncedAt());
+        assertEquals("r3", sink.putIds.get(0));
+        assertEquals("r1", sink.deletedIds.get(0));
+        assertEquals("r2", sink.deletedIds.get(1));
+        assertFalse(RecipeSync.isFullSnapshot(1000, delta));
+    }
+
+    @Test
+    public void serverIgnoringSinceIsTreatedAsFullSnapshot() throws Exception {
+        server.enqueue(json("{\"status\":\"success\",\"data\":{\"recipes\":[{\"id\":\"r1\"}]}}"));
+
+        RecipeDeltaReader delta = fetch(1000, new RecordingSink());
+
+        assertEquals(0, delta.getSyncedAt());
+        assertTrue(RecipeSync.isFullSnapshot(1000, delta));
+    }
+
+    @Test
+    public void emptyDeltaIsNotFullSnapshot() throws Exception {
+        server.enqueue(json("{\"status\":\"success\",\"data\":{\"recipes\":[],\"deletedIds\":[]}}"));
+
+        RecipeDeltaReader delta = fetch(0, new RecordingSink());
+
+        assertEquals(0, delta.getRecipeCount());
+        assertFalse(RecipeSync.isFullSnapshot(0, delta));
+    }
+
+    private RecipeDeltaReader fetch(long since, RecipeDeltaReader.Sink sink) throws Exception {
+        Response<ResponseBody> response = apiService.streamRecipesChangedSince(AUTH, since).execute();
+        assertTrue(response.isSuccessful());
+
+        RecipeDeltaReader delta = new RecipeDeltaReader();
+        try (ResponseBody body = response.body()) {
+            delta.read(body.charStream(), sink);
+        }
+        return delta;
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json; charset=utf-8").setBody(body);
+    }
+
+    private static class RecordingSink implements RecipeDeltaReader.Sink {
+        final List<Recipe> puts = new ArrayList<>();
+        final List<String> putIds = new ArrayList<>();
+        final List<String> deletedIds = new ArrayList<>();
+
+        @Override
+        public void putRecipe(Recipe recipe) {
+            puts.add(recipe);
+            putIds.add(recipe.getId());
+        }
+
+        @Override
+        public void deleteRecipe(String recipeId) {
+            deletedIds.add(recipeId);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.appfood;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import api.ApiGson;
+import api.ApiService;
+import api.ProgressRequestBody;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends upload jobs with the whole image to a stand-in add-recipe endpoint and checks which
+ * failures are retried
+ */
+public class RecipeUploadQueueTest {
+    private static final ProgressRequestBody.ProgressListener NO_PROGRESS = (bytesSent, totalBytes) -> { };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiService apiService;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        // Connection retries of OkHttp itself would hide what one attempt did
+        OkHttpClient client = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .readTimeout(5, TimeUnit.SECONDS)
+                .build();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(ApiGson.get()))
+                .build()
+                .create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void publishedRecipeIsSentAsMultipart() throws Exception {
+        server.enqueue(new MockResponse()
+                .setResponseCode(201)
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"status\":\"success\",\"data\":{\"recipe\":{\"id\":\"r1\",\"title\":\"Phở bò\"}}}"));
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(1024), NO_PROGRESS);
+
+        assertTrue(attempt.uploaded);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/api/recipes/add-recipe", request.getPath());
+        assertEquals("Bearer token", request.getHeader("Authorization"));
+        String body = request.getBody().readUtf8();
+        assertTrue(body.contains("Phở bò"));
+        assertTrue(body.contains("name=\"imageRecipe\"; filename=\"pho.jpg\""));
+    }
+
+    @Test
+    public void temporaryErrorIsRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(1024), NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertTrue(attempt.retry);
+    }
+
+    @Test
+    public void rateLimitIsRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429));
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(1024), NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertTrue(attempt.retry);
+    }
+
+    @Test
+    public void serverErrorIsNotRetried() throws Exception {
+        // The recipe may have been saved before the server failed
+        RecipeUploadQueue.UploadJob job = job(1024);
+        for (int code : new int[] {500, 502, 504}) {
+            server.enqueue(new MockResponse().setResponseCode(code));
+
+            RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job, NO_PROGRESS);
+
+            assertFalse(attempt.uploaded);
+            assertFalse("status " + code, attempt.retry);
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void rejectedRecipeIsNotRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(1024), NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertFalse(attempt.retry);
+    }
+
+    @Test
+    public void connectionLostWhileSendingImageIsRetried() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_DURING_REQUEST_BODY));
+
+        // Large enough that the image cannot fit in the socket buffers before the server hangs up
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(16 * 1024 * 1024), NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertTrue(attempt.retry);
+    }
+
+    @Test
+    public void connectionLostAfterRequestWasSentIsNotRetried() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(1024), NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertFalse(attempt.retry);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private RecipeUploadQueue.UploadJob job(int imageBytes) throws IOException {
+        File image = folder.newFile("pho.jpg");
+        byte[] data = new byte[imageBytes];
+        Arrays.fill(data, (byte) 'x');
+        Files.write(image.toPath(), data);
+
+        RecipeUploadQueue.UploadJob job = new RecipeUploadQueue.UploadJob();
+        job.id = "job1";
+        job.token = "token";
+        job.title = "Phở bò";
+        job.time = "45 phút";
+        job.ingredients = Arrays.asList("bánh phở", "thịt bò");
+        job.instructions = Arrays.asList("Nấu nước dùng", "Trụng bánh phở");
+        job.imagePath = image.getAbsolutePath();
+        job.imageName = "pho.jpg";
+        job.imageType = "image/jpeg";
+        // These cases cover the single request upload, ResumableImageUploadTest the one in parts
+        job.wholeImage = true;
+        return job;
+    }
+}
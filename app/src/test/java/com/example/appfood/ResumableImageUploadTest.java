@@ -0,0 +1,369 @@
+package com.example.appfood;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import api.ApiGson;
+import api.ApiService;
+import api.ProgressRequestBody;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.BufferedSink;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends upload jobs in parts to a stand-in server for the resumable upload protocol, with
+ * connections dropped part way, and counts the image bytes that had to be sent again
+ */
+public class ResumableImageUploadTest {
+    private static final ProgressRequestBody.ProgressListener NO_PROGRESS = (bytesSent, totalBytes) -> { };
+    private static final int PART_SIZE = 64 * 1024;
+    private static final int IMAGE_SIZE = 10 * PART_SIZE + 1234;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ResumableUploadServer uploadServer;
+    private ApiService apiService;
+    // Offsets of the parts whose connection drops half way, once each
+    private final Set<Long> dropPartsAt = ConcurrentHashMap.newKeySet();
+    private final AtomicLong imageBytesSent = new AtomicLong();
+    private byte[] image;
+
+    @Before
+    public void setUp() throws Exception {
+        uploadServer = new ResumableUploadServer();
+        server = new MockWebServer();
+        server.setDispatcher(uploadServer);
+        server.start();
+
+        // Connection retries of OkHttp itself would hide what one attempt did
+        OkHttpClient client = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .readTimeout(5, TimeUnit.SECONDS)
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    if (!"PUT".equals(request.method())) {
+                        return chain.proceed(request);
+                    }
+                    boolean drop = dropPartsAt.remove(Long.parseLong(request.header("Upload-Offset")));
+                    return chain.proceed(request.newBuilder()
+                            .put(new FlakyBody(request.body(), drop))
+                            .build());
+                })
+                .build();
+        apiService = new Retrofit.Builder()
+                .baseUrl(server.url("/api/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(ApiGson.get()))
+                .build()
+                .create(ApiService.class);
+
+        image = new byte[IMAGE_SIZE];
+        new Random(7).nextBytes(image);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void imageIsSentInPartsBeforeTheRecipe() throws Exception {
+        RecipeUploadQueue.UploadJob job = job();
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+
+        assertTrue(attempt.uploaded);
+        assertEquals(11, uploadServer.partsReceived);
+        assertArrayEquals(image, uploadServer.imageOf("job1"));
+        assertEquals(IMAGE_SIZE, imageBytesSent.get());
+        assertEquals(1, uploadServer.recipesCreated);
+        assertEquals("Phở bò", uploadServer.lastRecipeFields.get("title"));
+        assertEquals("pho.jpg", uploadServer.lastRecipeFields.get("imageName"));
+        assertFalse(job.wholeImage);
+    }
+
+    @Test
+    public void droppedConnectionResumesFromAcknowledgedPart() throws Exception {
+        RecipeUploadQueue.UploadJob job = job();
+        dropPartsAt.add(3L * PART_SIZE);
+        dropPartsAt.add(8L * PART_SIZE);
+
+        RecipeUploadQueue.Attempt first = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+        assertTrue(first.retry);
+        assertEquals(3L * PART_SIZE, job.imageOffset);
+
+        RecipeUploadQueue.Attempt second = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+        assertTrue(second.retry);
+        assertEquals(8L * PART_SIZE, job.imageOffset);
+
+        RecipeUploadQueue.Attempt third = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+        assertTrue(third.uploaded);
+        assertArrayEquals(image, uploadServer.imageOf("job1"));
+
+        // Each drop cost half a part, sending the whole image again would have cost all of it twice
+        assertEquals(IMAGE_SIZE + PART_SIZE, imageBytesSent.get());
+        assertEquals(1, uploadServer.recipesCreated);
+    }
+
+    @Test
+    public void partsTheServerHoldsAreNotSentAgain() throws Exception {
+        // An earlier process got four parts acknowledged but died before storing the offset
+        uploadServer.hold("job1", Arrays.copyOf(image, 4 * PART_SIZE), IMAGE_SIZE);
+        RecipeUploadQueue.UploadJob job = job();
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+
+        assertTrue(attempt.uploaded);
+        assertArrayEquals(image, uploadServer.imageOf("job1"));
+        // Only the first part went out before the server answered with its offset
+        assertEquals(IMAGE_SIZE - 4L * PART_SIZE + PART_SIZE, imageBytesSent.get());
+    }
+
+    @Test
+    public void expiredUploadStartsOver() throws Exception {
+        RecipeUploadQueue.UploadJob job = job();
+        job.imageOffset = 5L * PART_SIZE;
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+
+        assertTrue(attempt.uploaded);
+        assertArrayEquals(image, uploadServer.imageOf("job1"));
+        assertEquals(IMAGE_SIZE, imageBytesSent.get());
+    }
+
+    @Test
+    public void lostAnswerToTheRecipeRequestIsRetriedWithoutADuplicate() throws Exception {
+        RecipeUploadQueue.UploadJob job = job();
+        uploadServer.dropAnswerToNextRecipe = true;
+
+        RecipeUploadQueue.Attempt first = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+        assertTrue(first.retry);
+
+        RecipeUploadQueue.Attempt second = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+        assertTrue(second.uploaded);
+        assertEquals(IMAGE_SIZE, imageBytesSent.get());
+        assertEquals(1, uploadServer.recipesCreated);
+    }
+
+    @Test
+    public void serverWithoutUploadsGetsTheWholeImage() throws Exception {
+        uploadServer.supportsUploads = false;
+        RecipeUploadQueue.UploadJob job = job();
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job, PART_SIZE, NO_PROGRESS);
+
+        assertTrue(attempt.uploaded);
+        assertTrue(job.wholeImage);
+        assertTrue(uploadServer.lastRecipeBody.contains("name=\"imageRecipe\"; filename=\"pho.jpg\""));
+    }
+
+    @Test
+    public void rejectedPartFailsTheUpload() throws Exception {
+        uploadServer.rejectParts = true;
+
+        RecipeUploadQueue.Attempt attempt = RecipeUploadQueue.send(apiService, job(), PART_SIZE, NO_PROGRESS);
+
+        assertFalse(attempt.uploaded);
+        assertFalse(attempt.retry);
+        assertEquals(0, uploadServer.recipesCreated);
+    }
+
+    private RecipeUploadQueue.UploadJob job() throws IOException {
+        File file = folder.newFile("pho.jpg");
+        Files.write(file.toPath(), image);
+
+        RecipeUploadQueue.UploadJob job = new RecipeUploadQueue.UploadJob();
+        job.id = "job1";
+        job.token = "token";
+        job.title = "Phở bò";
+        job.time = "45 phút";
+        job.ingredients = Arrays.asList("bánh phở", "thịt bò");
+        job.instructions = Arrays.asList("Nấu nước dùng", "Trụng bánh phở");
+        job.imagePath = file.getAbsolutePath();
+        job.imageName = "pho.jpg";
+        job.imageType = "image/jpeg";
+        return job;
+    }
+
+    /**
+     * Part body that counts the bytes it sends and can lose the connection half way
+     */
+    private class FlakyBody extends RequestBody {
+        private final RequestBody delegate;
+        private final boolean drop;
+
+        FlakyBody(RequestBody delegate, boolean drop) {
+            this.delegate = delegate;
+            this.drop = drop;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Buffer body = new Buffer();
+            delegate.writeTo(body);
+            long bytes = drop ? body.size() / 2 : body.size();
+            sink.write(body, bytes);
+            sink.flush();
+            imageBytesSent.addAndGet(bytes);
+            if (drop) {
+                throw new IOException("Connection lost");
+            }
+        }
+    }
+
+    /**
+     * The server side of the protocol ResumableImageUpload speaks, in memory
+     */
+    private static class ResumableUploadServer extends Dispatcher {
+        private static final Pattern UPLOAD_PATH = Pattern.compile("/api/recipes/add-recipe/uploads/([^/]+)");
+        private static final Pattern TEXT_PART =
+                Pattern.compile("name=\"([^\"]+)\"\\r\\n(?:[^\\r\\n]+\\r\\n)*\\r\\n([^\\r\\n]*)\\r\\n");
+
+        private final Map<String, Buffer> uploads = new HashMap<>();
+        private final Map<String, Long> lengths = new HashMap<>();
+        private final Map<String, String> recipeIds = new HashMap<>();
+
+        volatile boolean supportsUploads = true;
+        volatile boolean rejectParts = false;
+        volatile boolean dropAnswerToNextRecipe = false;
+        volatile int partsReceived;
+        volatile int recipesCreated;
+        volatile String lastRecipeBody;
+        volatile Map<String, String> lastRecipeFields;
+
+        synchronized void hold(String uploadId, byte[] bytes, long length) {
+            uploads.put(uploadId, new Buffer().write(bytes));
+            lengths.put(uploadId, length);
+        }
+
+        synchronized byte[] imageOf(String uploadId) {
+            return uploads.get(uploadId).snapshot().toByteArray();
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            Matcher upload = UPLOAD_PATH.matcher(path);
+            if (upload.matches()) {
+                if (!supportsUploads) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                String uploadId = upload.group(1);
+                if ("HEAD".equals(request.getMethod())) {
+                    Buffer held = uploads.get(uploadId);
+                    return held == null ? new MockResponse().setResponseCode(404) : offset(200, held.size());
+                }
+                if ("PUT".equals(request.getMethod())) {
+                    return putPart(uploadId, request);
+                }
+                return new MockResponse().setResponseCode(405);
+            }
+            if ("/api/recipes/add-recipe".equals(path) && "POST".equals(request.getMethod())) {
+                return addRecipe(request);
+            }
+            return new MockResponse().setResponseCode(404);
+        }
+
+        private MockResponse putPart(String uploadId, RecordedRequest request) {
+            if (rejectParts) {
+                return new MockResponse().setResponseCode(413);
+            }
+            long offset = Long.parseLong(request.getHeader("Upload-Offset"));
+            long length = Long.parseLong(request.getHeader("Upload-Length"));
+            Buffer held = uploads.computeIfAbsent(uploadId, id -> new Buffer());
+            lengths.put(uploadId, length);
+            if (offset != held.size()) {
+                return offset(409, held.size());
+            }
+            if (offset + request.getBodySize() > length) {
+                return new MockResponse().setResponseCode(400);
+            }
+            held.writeAll(request.getBody());
+            partsReceived++;
+            return offset(204, held.size());
+        }
+
+        private MockResponse addRecipe(RecordedRequest request) {
+            String body = request.getBody().readUtf8();
+            Map<String, String> fields = new HashMap<>();
+            Matcher part = TEXT_PART.matcher(body);
+            while (part.find()) {
+                fields.put(part.group(1), part.group(2));
+            }
+            lastRecipeBody = body;
+            lastRecipeFields = fields;
+
+            String uploadId = fields.get("imageUploadId");
+            String recipeId;
+            if (uploadId == null) {
+                recipeId = "r" + ++recipesCreated;
+            } else if (!uploads.containsKey(uploadId)) {
+                return new MockResponse().setResponseCode(404);
+            } else if (uploads.get(uploadId).size() != lengths.get(uploadId)) {
+                return new MockResponse().setResponseCode(400);
+            } else {
+                // One recipe per upload, a repeated request gets the recipe created the first time
+                recipeId = recipeIds.get(uploadId);
+                if (recipeId == null) {
+                    recipeId = "r" + ++recipesCreated;
+                    recipeIds.put(uploadId, recipeId);
+                }
+            }
+
+            MockResponse response = new MockResponse()
+                    .setResponseCode(201)
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("{\"status\":\"success\",\"data\":{\"recipe\":{\"id\":\"" + recipeId + "\"}}}");
+            if (dropAnswerToNextRecipe) {
+                dropAnswerToNextRecipe = false;
+                response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            return response;
+        }
+
+        private static MockResponse offset(int code, long offset) {
+            return new MockResponse().setResponseCode(code).setHeader("Upload-Offset", offset);
+        }
+    }
+}